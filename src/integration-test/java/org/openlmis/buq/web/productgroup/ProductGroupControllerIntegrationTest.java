@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
 import static org.mockito.BDDMockito.willReturn;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -48,7 +49,9 @@ import org.openlmis.buq.builder.ProductGroupDataBuilder;
 import org.openlmis.buq.domain.productgroup.ProductGroup;
 import org.openlmis.buq.dto.productgroup.ProductGroupDto;
 import org.openlmis.buq.i18n.MessageKeys;
+import org.openlmis.buq.service.productgroup.ProductGroupResolver;
 import org.openlmis.buq.web.BaseWebIntegrationTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
@@ -63,6 +66,9 @@ public class ProductGroupControllerIntegrationTest extends BaseWebIntegrationTes
 
   private static final String NAME = "name";
 
+  @MockBean
+  private ProductGroupResolver productGroupResolver;
+
   private final ProductGroup productGroup = new ProductGroupDataBuilder().build();
   private final ProductGroupDto productGroupDto = ProductGroupDto.newInstance(productGroup);
 
@@ -126,6 +132,7 @@ public class ProductGroupControllerIntegrationTest extends BaseWebIntegrationTes
         .body(NAME, is(productGroupDto.getName()));
 
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+    then(productGroupResolver).should().invalidate();
   }
 
   @Test
@@ -285,6 +292,7 @@ public class ProductGroupControllerIntegrationTest extends BaseWebIntegrationTes
         .statusCode(HttpStatus.SC_NO_CONTENT);
 
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+    then(productGroupResolver).should().invalidate();
   }
 
   @Test
@@ -0,0 +1,155 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.buq;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.buq.domain.buq.BottomUpQuantification;
+import org.openlmis.buq.domain.buq.BottomUpQuantificationLineItem;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+import org.openlmis.buq.dto.referencedata.BasicOrderableDto;
+
+/**
+ * Compares the product group cost calculation of {@link ProductGroupCostRollup}, which keeps the
+ * totals in minor units of groups resolved beforehand, with the previous implementation, which
+ * added {@link Money} objects and looked the groups up through the list of codes for every line
+ * item. Run it with {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductGroupCostRollupBenchmark {
+
+  private static final CurrencyUnit CURRENCY = CurrencyUnit.USD;
+  private static final int LINE_ITEMS_PER_BUQ = 1000;
+  private static final int ORDERABLES = 2000;
+  private static final String[] GROUP_CODES = {"10", "20", "30", "40", "50", "60", "70", null};
+
+  @Param({"1000000"})
+  private int lineItems;
+
+  private final List<ProductGroup> productGroups = new ArrayList<>();
+  private final Map<UUID, BasicOrderableDto> orderables = new HashMap<>();
+  private final Map<UUID, ProductGroup> groupsByOrderable = new HashMap<>();
+  private final List<BottomUpQuantification> bottomUpQuantifications = new ArrayList<>();
+
+  /**
+   * Prepares bottom-up quantifications with the given total number of line items, with products
+   * spread over the product groups.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+
+    for (String code : GROUP_CODES) {
+      ProductGroup group = new ProductGroup();
+      group.setName("Group " + code);
+      group.setCode(code);
+      productGroups.add(group);
+    }
+
+    List<UUID> orderableIds = new ArrayList<>();
+    for (int i = 0; i < ORDERABLES; i++) {
+      BasicOrderableDto orderable = new BasicOrderableDto();
+      orderable.setId(UUID.randomUUID());
+      orderable.setProductCode((random.nextInt(90) + 10) + "" + (1000 + i));
+      orderables.put(orderable.getId(), orderable);
+      orderableIds.add(orderable.getId());
+      productGroups
+          .stream()
+          .filter(group -> orderable.getProductCode().substring(0, 2).equals(group.getCode()))
+          .forEach(group -> groupsByOrderable.put(orderable.getId(), group));
+    }
+
+    for (int created = 0; created < lineItems; created += LINE_ITEMS_PER_BUQ) {
+      BottomUpQuantification buq = new BottomUpQuantification();
+      buq.setId(UUID.randomUUID());
+      List<BottomUpQuantificationLineItem> items = new ArrayList<>();
+
+      for (int i = 0; i < LINE_ITEMS_PER_BUQ; i++) {
+        BottomUpQuantificationLineItem item = new BottomUpQuantificationLineItem();
+        item.setOrderableId(orderableIds.get(random.nextInt(ORDERABLES)));
+        item.setTotalCost(Money.ofMinor(CURRENCY, random.nextInt(1_000_000)));
+        items.add(item);
+      }
+
+      buq.setBottomUpQuantificationLineItems(items);
+      bottomUpQuantifications.add(buq);
+    }
+  }
+
+  @Benchmark
+  public Map<String, String> rollup() {
+    return new ProductGroupCostRollup(productGroups, CURRENCY, groupsByOrderable)
+        .calculate(bottomUpQuantifications);
+  }
+
+  /**
+   * Calculates the costs the way the service did before, adding {@link Money} objects for every
+   * line item.
+   */
+  @Benchmark
+  public Map<String, String> moneyAddition() {
+    Map<String, Money> groupsCalculations = new HashMap<>();
+    List<String> productGroupCodes = new ArrayList<>();
+    Map<String, String> productGroupsCodeNameMap = new HashMap<>();
+
+    for (ProductGroup group : productGroups) {
+      productGroupsCodeNameMap.put(group.getCode(), group.getName());
+      groupsCalculations.put(group.getName(), Money.of(CURRENCY, 0.00));
+      productGroupCodes.add(group.getCode());
+    }
+
+    for (BottomUpQuantification buq : bottomUpQuantifications) {
+      for (BottomUpQuantificationLineItem lineItem : buq.getBottomUpQuantificationLineItems()) {
+        BasicOrderableDto orderable = orderables.get(lineItem.getOrderableId());
+        String orderableCodeSuffix = orderable.getProductCode().substring(0, 2);
+        String groupName = productGroupCodes.contains(orderableCodeSuffix)
+            ? productGroupsCodeNameMap.get(orderableCodeSuffix)
+            : productGroupsCodeNameMap.get(null);
+        groupsCalculations.put(groupName,
+            groupsCalculations.get(groupName).plus(lineItem.getTotalCost()));
+      }
+    }
+
+    return groupsCalculations.entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, entry ->
+            entry.getValue().getAmount() + " " + entry.getValue().getCurrencyUnit().getCode()));
+  }
+
+}
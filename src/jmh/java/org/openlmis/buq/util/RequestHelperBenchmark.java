@@ -0,0 +1,107 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.buq.service.RequestParameters;
+
+/**
+ * Compares {@link RequestHelper#splitRequest(String, RequestParameters, int)} with the previous
+ * recursive implementation, which built and encoded the whole URI on every level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestHelperBenchmark {
+
+  private static final String URL = "http://localhost/api/orderables/";
+  private static final int MAX_URL_LENGTH = 2000;
+
+  @Param({"10", "100", "1000", "10000"})
+  private int ids;
+
+  private RequestParameters parameters;
+
+  /**
+   * Prepares the request parameters with the given number of ids.
+   */
+  @Setup
+  public void setUp() {
+    List<UUID> values = Stream
+        .generate(UUID::randomUUID)
+        .limit(ids)
+        .collect(Collectors.toList());
+
+    parameters = RequestParameters
+        .init()
+        .set("id", values)
+        .set("program", UUID.randomUUID());
+  }
+
+  @Benchmark
+  public URI[] splitRequest() {
+    return RequestHelper.splitRequest(URL, parameters, MAX_URL_LENGTH);
+  }
+
+  @Benchmark
+  public URI[] recursiveSplitRequest() {
+    return recursiveSplitRequest(URL, parameters, MAX_URL_LENGTH);
+  }
+
+  private static URI[] recursiveSplitRequest(String url, RequestParameters queryParams,
+      int maxUrlLength) {
+    RequestParameters safeQueryParams = RequestParameters.init().setAll(queryParams);
+    URI uri = RequestHelper.createUri(url, safeQueryParams);
+
+    if (uri.toString().length() > maxUrlLength) {
+      Pair<RequestParameters, RequestParameters> split = safeQueryParams.split();
+
+      if (null != split.getLeft() && null != split.getRight()) {
+        URI[] left = recursiveSplitRequest(url, split.getLeft(), maxUrlLength);
+        URI[] right = recursiveSplitRequest(url, split.getRight(), maxUrlLength);
+
+        return Stream
+            .concat(Arrays.stream(left), Arrays.stream(right))
+            .distinct()
+            .toArray(URI[]::new);
+      }
+    }
+
+    return new URI[]{uri};
+  }
+
+}
@@ -15,13 +15,17 @@
 
 package org.openlmis.buq;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import org.openlmis.buq.util.OutboundCallSummaryInterceptor;
 import org.openlmis.buq.util.Pagination;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -32,6 +36,9 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
   @Value("${service.url}")
   private String serviceUrl;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @Override
   public void addViewControllers(ViewControllerRegistry registry) {
     registry.addViewController("/buq/docs")
@@ -46,6 +53,11 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
         .addResourceLocations("classpath:/META-INF/resources/webjars/");
   }
 
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new OutboundCallSummaryInterceptor(meterRegistry));
+  }
+
   @Override
   public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
     PageableHandlerMethodArgumentResolver resolver = new PageableHandlerMethodArgumentResolver();
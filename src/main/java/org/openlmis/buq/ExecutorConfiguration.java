@@ -0,0 +1,76 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.openlmis.buq.util.ContextPropagatingTaskDecorator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfiguration {
+
+  public static final String REFERENCE_DATA_EXECUTOR = "referenceDataExecutor";
+  public static final String REFERENCE_DATA_ASYNC_EXECUTOR = "referenceDataAsyncExecutor";
+
+  @Value("${referencedata.executor.poolSize}")
+  private int poolSize;
+
+  @Value("${referencedata.executor.queueCapacity}")
+  private int queueCapacity;
+
+  @Value("${referencedata.asyncExecutor.poolSize}")
+  private int asyncPoolSize;
+
+  @Value("${referencedata.asyncExecutor.queueCapacity}")
+  private int asyncQueueCapacity;
+
+  /**
+   * Creates the bounded executor used to run reference data calls in parallel. The security
+   * context and request attributes of the caller are passed to the worker threads. When the pool
+   * and its queue are full the caller runs the task itself, which limits the parallelism instead
+   * of failing the request.
+   */
+  @Bean(name = REFERENCE_DATA_EXECUTOR)
+  public ThreadPoolTaskExecutor referenceDataExecutor() {
+    return createExecutor(poolSize, queueCapacity, "referencedata-");
+  }
+
+  /**
+   * Creates the bounded executor that runs the asynchronous reference data lookups. It is kept
+   * apart from the executor of the split calls, so a lookup waiting for its split calls never
+   * takes the threads they need.
+   */
+  @Bean(name = REFERENCE_DATA_ASYNC_EXECUTOR)
+  public ThreadPoolTaskExecutor referenceDataAsyncExecutor() {
+    return createExecutor(asyncPoolSize, asyncQueueCapacity, "referencedata-async-");
+  }
+
+  private ThreadPoolTaskExecutor createExecutor(int size, int capacity, String prefix) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(size);
+    executor.setMaxPoolSize(size);
+    executor.setQueueCapacity(capacity);
+    executor.setThreadNamePrefix(prefix);
+    executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.buq.service.referencedata.BaseReferenceDataService;
+import org.openlmis.buq.util.FutureHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Loads the reference data that is needed by almost every request (rights, programs,
+ * orderables and facilities) into the caches before the application reports that it is ready,
+ * so the first requests after a restart do not have to fetch it one by one.
+ *
+ * <p>If a snapshot file is configured, the caches are written to it at shutdown. At the next
+ * startup a recent enough snapshot is restored instead of waiting for the reference data
+ * service, and the caches are reloaded in the background.
+ */
+@Component
+@Profile("!test-run")
+@Order(10)
+public class ReferenceDataCacheInitializer implements CommandLineRunner {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ReferenceDataCacheInitializer.class);
+
+  @Value("${referencedata.warmUp.enabled}")
+  private boolean enabled;
+
+  @Value("${referencedata.snapshot.file}")
+  private String snapshotFile;
+
+  @Value("${referencedata.snapshot.maxAge}")
+  private long snapshotMaxAge;
+
+  private final List<BaseReferenceDataService<?>> services;
+  private final ObjectMapper objectMapper;
+  private final Executor executor;
+
+  /**
+   * Creates the initializer of the given reference data services.
+   */
+  @Autowired
+  public ReferenceDataCacheInitializer(List<BaseReferenceDataService<?>> services,
+      ObjectMapper objectMapper,
+      @Qualifier(ExecutorConfiguration.REFERENCE_DATA_ASYNC_EXECUTOR) Executor executor) {
+    this.services = services;
+    this.objectMapper = objectMapper;
+    this.executor = executor;
+  }
+
+  /**
+   * Restores the snapshot, if any, and loads the caches. Resources restored from the snapshot
+   * are reloaded in the background; the others are loaded before this method returns. A
+   * resource that cannot be loaded is logged and left to be fetched on demand.
+   *
+   * @param args command line arguments
+   */
+  @Override
+  public void run(String... args) {
+    if (!enabled) {
+      return;
+    }
+
+    List<BaseReferenceDataService<?>> warmable = getWarmableServices();
+    Set<BaseReferenceDataService<?>> restored = restoreSnapshot(warmable);
+    List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+    for (BaseReferenceDataService<?> service : warmable) {
+      CompletableFuture<Void> future = CompletableFuture
+          .runAsync(() -> warmUp(service), executor);
+
+      if (!restored.contains(service)) {
+        pending.add(future);
+      }
+    }
+
+    pending.forEach(FutureHelper::join);
+  }
+
+  /**
+   * Writes the cached reference data to the snapshot file, if one is configured.
+   */
+  @PreDestroy
+  public void writeSnapshot() {
+    if (!enabled || StringUtils.isBlank(snapshotFile)) {
+      return;
+    }
+
+    Map<String, List<?>> snapshot = new LinkedHashMap<>();
+
+    for (BaseReferenceDataService<?> service : getWarmableServices()) {
+      snapshot.put(getName(service), service.getCachedObjects());
+    }
+
+    Path target = Paths.get(snapshotFile);
+
+    try {
+      Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(),
+          target.getFileName().toString(), ".tmp");
+      objectMapper.writeValue(temporary.toFile(), snapshot);
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      LOGGER.info("Reference data snapshot written to {}", target);
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.warn("Could not write reference data snapshot to {}", target, ex);
+    }
+  }
+
+  private List<BaseReferenceDataService<?>> getWarmableServices() {
+    return services
+        .stream()
+        .filter(BaseReferenceDataService::isWarmable)
+        .collect(Collectors.toList());
+  }
+
+  private Set<BaseReferenceDataService<?>> restoreSnapshot(
+      List<BaseReferenceDataService<?>> warmable) {
+    Set<BaseReferenceDataService<?>> restored = new HashSet<>();
+
+    if (StringUtils.isBlank(snapshotFile)) {
+      return restored;
+    }
+
+    File file = new File(snapshotFile);
+
+    if (!file.isFile()) {
+      return restored;
+    }
+
+    long age = System.currentTimeMillis() - file.lastModified();
+
+    if (age > snapshotMaxAge) {
+      LOGGER.info("Reference data snapshot {} is too old, ignoring it", file);
+      return restored;
+    }
+
+    JsonNode snapshot;
+
+    try {
+      snapshot = objectMapper.readTree(file);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not read reference data snapshot from {}", file, ex);
+      return restored;
+    }
+
+    for (BaseReferenceDataService<?> service : warmable) {
+      JsonNode objects = snapshot.get(getName(service));
+
+      if (null == objects || !objects.isArray()) {
+        continue;
+      }
+
+      try {
+        int count = service.restore(objectMapper, objects, age);
+        restored.add(service);
+        LOGGER.info("Restored {} objects of {} from snapshot", count,
+            getName(service));
+      } catch (RuntimeException ex) {
+        LOGGER.warn("Could not restore {} from snapshot", getName(service), ex);
+      }
+    }
+
+    return restored;
+  }
+
+  private void warmUp(BaseReferenceDataService<?> service) {
+    String name = getName(service);
+
+    try {
+      int count = service.warmUp();
+      LOGGER.info("Loaded {} objects of {} into the cache", count, name);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Could not load {} into the cache", name, ex);
+    }
+  }
+
+  private String getName(BaseReferenceDataService<?> service) {
+    return ClassUtils.getUserClass(service).getSimpleName();
+  }
+
+}
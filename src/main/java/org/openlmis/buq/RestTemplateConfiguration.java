@@ -0,0 +1,169 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import io.micrometer.core.instrument.logging.LoggingRegistryConfig;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.openlmis.buq.service.ResponseSizeInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Configures the HTTP transport shared by all outbound calls to other OpenLMIS services. The
+ * connections are pooled and kept alive so a single request that triggers many reference data
+ * calls does not pay the TCP/TLS setup cost for each of them.
+ */
+@Configuration
+public class RestTemplateConfiguration {
+
+  static final String CONNECTION_POOL_NAME = "outbound";
+
+  private static final Logger METRICS_LOGGER = LoggerFactory.getLogger("org.openlmis.buq.metrics");
+
+  @Value("${http.client.maxConnections}")
+  private int maxConnections;
+
+  @Value("${http.client.maxConnectionsPerRoute}")
+  private int maxConnectionsPerRoute;
+
+  @Value("${http.client.connectTimeout}")
+  private int connectTimeout;
+
+  @Value("${http.client.readTimeout}")
+  private int readTimeout;
+
+  @Value("${http.client.connectionRequestTimeout}")
+  private int connectionRequestTimeout;
+
+  @Value("${http.client.idleTimeout}")
+  private long idleTimeout;
+
+  @Value("${http.client.validateAfterInactivity}")
+  private int validateAfterInactivity;
+
+  @Value("${metrics.logging.enabled}")
+  private boolean metricsLoggingEnabled;
+
+  @Value("${metrics.logging.interval}")
+  private long metricsLoggingInterval;
+
+  /**
+   * Creates the connection pool with the configured total and per-route limits.
+   */
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager httpClientConnectionManager() {
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+    return connectionManager;
+  }
+
+  /**
+   * Creates the HTTP client backed by the shared connection pool. Idle and expired connections
+   * are evicted in the background so that stale sockets are not handed out to callers. The size
+   * of each response is counted as it is read (see {@link ResponseSizeInterceptor}).
+   */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient httpClient(
+      PoolingHttpClientConnectionManager httpClientConnectionManager) {
+    RequestConfig requestConfig = RequestConfig
+        .custom()
+        .setConnectTimeout(connectTimeout)
+        .setSocketTimeout(readTimeout)
+        .setConnectionRequestTimeout(connectionRequestTimeout)
+        .build();
+
+    return HttpClients
+        .custom()
+        .setConnectionManager(httpClientConnectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+        .evictExpiredConnections()
+        .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+        .addInterceptorLast(new ResponseSizeInterceptor())
+        .build();
+  }
+
+  @Bean
+  public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+    return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+  }
+
+  /**
+   * Creates the registry of the connection pool, cache, resilience, outbound call and token
+   * metrics. The service has no metrics endpoint, so the meters that changed are written to the
+   * {@code org.openlmis.buq.metrics} log every {@code metrics.logging.interval} milliseconds.
+   * When {@code metrics.logging.enabled} is false the metrics are kept in memory only.
+   */
+  @Bean(destroyMethod = "close")
+  public MeterRegistry meterRegistry() {
+    LoggingRegistryConfig config = new LoggingRegistryConfig() {
+      @Override
+      public String get(String key) {
+        return null;
+      }
+
+      @Override
+      public boolean enabled() {
+        return metricsLoggingEnabled;
+      }
+
+      @Override
+      public Duration step() {
+        return Duration.ofMillis(metricsLoggingInterval);
+      }
+    };
+
+    return LoggingMeterRegistry
+        .builder(config)
+        .clock(Clock.SYSTEM)
+        .loggingSink(METRICS_LOGGER::info)
+        .build();
+  }
+
+  /**
+   * Exposes the connection pool usage (leased, pending, available and max connections) so pool
+   * saturation can be observed.
+   */
+  @Bean
+  public PoolingHttpClientConnectionManagerMetricsBinder httpClientConnectionManagerMetrics(
+      PoolingHttpClientConnectionManager httpClientConnectionManager,
+      MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManagerMetricsBinder binder =
+        new PoolingHttpClientConnectionManagerMetricsBinder(
+            httpClientConnectionManager, CONNECTION_POOL_NAME);
+    binder.bindTo(meterRegistry);
+    return binder;
+  }
+
+}
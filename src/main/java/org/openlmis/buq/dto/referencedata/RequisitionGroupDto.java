@@ -39,6 +39,7 @@ public final class RequisitionGroupDto extends BaseDto {
   private String description;
   private SupervisoryNodeDto supervisoryNode;
   private Set<FacilityDto> memberFacilities;
+  private Set<RequisitionGroupProgramScheduleDto> requisitionGroupProgramSchedules;
 
   /**
    * Checks if there is a facility with the given ID in this requisition group.
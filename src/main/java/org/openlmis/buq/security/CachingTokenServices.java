@@ -0,0 +1,131 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+/**
+ * Decorator of {@link ResourceServerTokenServices} that remembers the authentication of each
+ * checked token, so a client sending many requests with one token does not wait for the auth
+ * service to check it on every request. An authentication is remembered for at most the
+ * configured time and never longer than the token is valid (see
+ * {@link TokenExpiryAccessTokenConverter}). Tokens are kept only as SHA-256 hashes and invalid
+ * tokens are not remembered.
+ */
+public class CachingTokenServices implements ResourceServerTokenServices {
+
+  static final String CACHE_NAME = "auth.tokenCache";
+
+  private final ResourceServerTokenServices delegate;
+  private final Cache<String, OAuth2Authentication> cache;
+
+  /**
+   * Creates the decorator.
+   *
+   * @param delegate  token services checking the tokens.
+   * @param ttl       how long (in milliseconds) an authentication is remembered at most.
+   * @param maxSize   how many authentications are remembered at most.
+   */
+  public CachingTokenServices(ResourceServerTokenServices delegate, long ttl, long maxSize) {
+    this(delegate, ttl, maxSize, Ticker.systemTicker(), Clock.systemUTC());
+  }
+
+  CachingTokenServices(ResourceServerTokenServices delegate, long ttl, long maxSize,
+      Ticker ticker, Clock clock) {
+    this.delegate = delegate;
+    this.cache = Caffeine
+        .newBuilder()
+        .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(ttl), clock))
+        .maximumSize(maxSize)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Registers the hit, miss and eviction statistics of the cache.
+   */
+  public void bindTo(MeterRegistry meterRegistry) {
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  @Override
+  public OAuth2Authentication loadAuthentication(String accessToken) {
+    OAuth2Authentication authentication = cache
+        .get(DigestUtils.sha256Hex(accessToken), key -> delegate.loadAuthentication(accessToken));
+
+    // the caller sets details on the returned authentication, so each request gets its own copy
+    return new OAuth2Authentication(authentication.getOAuth2Request(),
+        authentication.getUserAuthentication());
+  }
+
+  @Override
+  public OAuth2AccessToken readAccessToken(String accessToken) {
+    return delegate.readAccessToken(accessToken);
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private static final class TokenExpiry implements Expiry<String, OAuth2Authentication> {
+    private final long ttl;
+    private final Clock clock;
+
+    private TokenExpiry(long ttl, Clock clock) {
+      this.ttl = ttl;
+      this.clock = clock;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, OAuth2Authentication value, long currentTime) {
+      Object expiry = value.getOAuth2Request().getExtensions().get(AccessTokenConverter.EXP);
+
+      if (!(expiry instanceof Number)) {
+        return ttl;
+      }
+
+      long validFor = TimeUnit.SECONDS.toMillis(((Number) expiry).longValue()) - clock.millis();
+      return Math.max(0, Math.min(ttl, TimeUnit.MILLISECONDS.toNanos(validFor)));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, OAuth2Authentication value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String key, OAuth2Authentication value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+}
@@ -15,6 +15,7 @@
 
 package org.openlmis.buq.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.util.Arrays;
 import javax.servlet.FilterChain;
@@ -37,6 +38,7 @@ import org.springframework.security.oauth2.provider.authentication.TokenExtracto
 import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
 import org.springframework.security.web.authentication.preauth.AbstractPreAuthenticatedProcessingFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -60,6 +62,12 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
   @Value("${cors.allowedMethods}")
   private String[] allowedMethods;
 
+  @Value("${auth.tokenCache.ttl}")
+  private long tokenCacheTtl;
+
+  @Value("${auth.tokenCache.maxSize}")
+  private long tokenCacheMaxSize;
+
   @Override
   public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
     resources.resourceId(resourceId);
@@ -98,31 +106,44 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
    */
   @Bean
   public AccessTokenConverter accessTokenConverter() {
-    DefaultAccessTokenConverter defaultAccessTokenConverter = new DefaultAccessTokenConverter();
+    DefaultAccessTokenConverter defaultAccessTokenConverter =
+        new TokenExpiryAccessTokenConverter();
     defaultAccessTokenConverter.setUserTokenConverter(new CustomUserAuthenticationConverter());
     return defaultAccessTokenConverter;
   }
 
   /**
-   * RemoteTokenServices bean initializer.
+   * Token services bean initializer. Tokens are checked against the auth service with
+   * {@link RemoteTokenServices}, and the results are cached (see {@link CachingTokenServices})
+   * unless {@code auth.tokenCache.ttl} or {@code auth.tokenCache.maxSize} is 0.
    *
    * @param checkTokenUrl url to check tokens against
    * @param clientId      client's id
    * @param clientSecret  client's secret
+   * @param meterRegistry registry of the token cache metrics
    * @return token services
    */
   @Bean
   @Autowired
-  public RemoteTokenServices remoteTokenServices(@Value("${auth.server.url}") String checkTokenUrl,
+  public ResourceServerTokenServices tokenServices(
+      @Value("${auth.server.url}") String checkTokenUrl,
       @Value("${auth.server.clientId}") String clientId,
-      @Value("${auth.server.clientSecret}")
-          String clientSecret) {
+      @Value("${auth.server.clientSecret}") String clientSecret,
+      MeterRegistry meterRegistry) {
     final RemoteTokenServices remoteTokenServices = new RemoteTokenServices();
     remoteTokenServices.setCheckTokenEndpointUrl(checkTokenUrl);
     remoteTokenServices.setClientId(clientId);
     remoteTokenServices.setClientSecret(clientSecret);
     remoteTokenServices.setAccessTokenConverter(accessTokenConverter());
-    return remoteTokenServices;
+
+    if (tokenCacheTtl <= 0 || tokenCacheMaxSize <= 0) {
+      return remoteTokenServices;
+    }
+
+    CachingTokenServices cachingTokenServices =
+        new CachingTokenServices(remoteTokenServices, tokenCacheTtl, tokenCacheMaxSize);
+    cachingTokenServices.bindTo(meterRegistry);
+    return cachingTokenServices;
   }
 
   /**
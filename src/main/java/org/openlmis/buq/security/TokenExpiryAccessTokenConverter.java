@@ -0,0 +1,53 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.security;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+
+/**
+ * Extension of {@link DefaultAccessTokenConverter} that keeps the expiry time of the token
+ * (the {@code exp} claim, in seconds since the epoch) in the extensions of the OAuth2 request,
+ * so the authentication can be cached no longer than the token is valid.
+ */
+public class TokenExpiryAccessTokenConverter extends DefaultAccessTokenConverter {
+
+  @Override
+  public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+    OAuth2Authentication authentication = super.extractAuthentication(map);
+    Object expiry = map.get(EXP);
+
+    if (!(expiry instanceof Number)) {
+      return authentication;
+    }
+
+    OAuth2Request request = authentication.getOAuth2Request();
+    Map<String, Serializable> extensions = new HashMap<>(request.getExtensions());
+    extensions.put(EXP, ((Number) expiry).longValue());
+
+    OAuth2Request withExpiry = new OAuth2Request(request.getRequestParameters(),
+        request.getClientId(), request.getAuthorities(), request.isApproved(),
+        request.getScope(), request.getResourceIds(), request.getRedirectUri(),
+        request.getResponseTypes(), extensions);
+
+    return new OAuth2Authentication(withExpiry, authentication.getUserAuthentication());
+  }
+
+}
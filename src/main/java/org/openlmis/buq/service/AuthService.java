@@ -17,22 +17,35 @@ package org.openlmis.buq.service;
 
 import static org.openlmis.buq.util.RequestHelper.createUri;
 
+import java.time.Clock;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
 import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
 @Service
 public class AuthService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AuthService.class);
+
   private static final String ACCESS_TOKEN = "access_token";
+  private static final String EXPIRES_IN = "expires_in";
 
   @Value("${auth.server.clientId}")
   private String clientId;
@@ -43,15 +56,107 @@ public class AuthService {
   @Value("${auth.server.authorizationUrl}")
   private String authorizationUrl;
 
+  @Value("${auth.server.tokenRefreshAhead}")
+  private long tokenRefreshAhead;
+
   private RestOperations restTemplate = new RestTemplate();
 
+  private Clock clock = Clock.systemUTC();
+
+  private volatile AccessToken token;
+
+  private final Lock lock = new ReentrantLock();
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  private final ExecutorService refreshExecutor = Executors
+      .newSingleThreadExecutor(createRefreshThreadFactory());
+
   /**
-   * Retrieves access token from the auth service.
+   * Retrieves access token from the auth service. The token is kept until it expires. When it
+   * is about to expire, a new one is requested in the background while the current one is still
+   * returned, and only one request for a new token is made at a time.
    *
    * @return token.
    */
-  @Cacheable("token")
   public String obtainAccessToken() {
+    AccessToken current = token;
+    long now = clock.millis();
+
+    if (null == current || current.isExpired(now)) {
+      return getOrRequestToken(current).value;
+    }
+
+    if (current.isRefreshNeeded(now, tokenRefreshAhead)
+        && refreshing.compareAndSet(false, true)) {
+      refreshExecutor.execute(() -> {
+        try {
+          getOrRequestToken(current);
+        } catch (RuntimeException ex) {
+          LOGGER.warn("Could not refresh the access token in the background", ex);
+        } finally {
+          refreshing.set(false);
+        }
+      });
+    }
+
+    return current.value;
+  }
+
+  /**
+   * Drops the given token if it is still the current one, so the next call requests a new one.
+   * When another thread has already replaced it, the newer token is kept.
+   *
+   * @param rejectedToken the token a request was rejected with.
+   */
+  public void clearTokenCache(String rejectedToken) {
+    AccessToken current = token;
+
+    if (null != current && current.value.equals(rejectedToken)) {
+      lock.lock();
+      try {
+        if (token == current) {
+          token = null;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  @Autowired
+  public void setRestTemplate(RestOperations restTemplate) {
+    this.restTemplate = restTemplate;
+  }
+
+  @Autowired
+  public void setClock(Clock clock) {
+    this.clock = clock;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+
+  private AccessToken getOrRequestToken(AccessToken previous) {
+    lock.lock();
+    try {
+      // another thread could have obtained a new token in the meantime
+      AccessToken current = token;
+
+      if (null != current && current != previous && !current.isExpired(clock.millis())) {
+        return current;
+      }
+
+      token = requestToken();
+      return token;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private AccessToken requestToken() {
     String plainCreds = clientId + ":" + clientSecret;
     byte[] plainCredsBytes = plainCreds.getBytes();
     byte[] base64CredsBytes = Base64.encodeBase64(plainCredsBytes);
@@ -66,20 +171,41 @@ public class AuthService {
         .init()
         .set("grant_type", "client_credentials");
 
+    long now = clock.millis();
     ResponseEntity<?> response = restTemplate.exchange(
         createUri(authorizationUrl, params), HttpMethod.POST, request, Object.class
     );
 
-    return ((Map<String, String>) response.getBody()).get(ACCESS_TOKEN);
+    Map<String, Object> body = (Map<String, Object>) response.getBody();
+    Object expiresIn = body.get(EXPIRES_IN);
+    long expiresAt = expiresIn instanceof Number
+        ? now + ((Number) expiresIn).longValue() * 1000
+        : Long.MAX_VALUE;
+
+    return new AccessToken((String) body.get(ACCESS_TOKEN), now, expiresAt);
   }
 
-  @CacheEvict(cacheNames = "token", allEntries = true)
-  public void clearTokenCache() {
-    // Intentionally blank
+  private static CustomizableThreadFactory createRefreshThreadFactory() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("auth-token-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
   }
 
-  void setRestTemplate(RestOperations restTemplate) {
-    this.restTemplate = restTemplate;
+  @AllArgsConstructor
+  private static final class AccessToken {
+    private final String value;
+    private final long obtainedAt;
+    private final long expiresAt;
+
+    boolean isExpired(long now) {
+      return now >= expiresAt;
+    }
+
+    boolean isRefreshNeeded(long now, long refreshAhead) {
+      // short-lived tokens are refreshed in the second half of their lifetime at the latest
+      return expiresAt != Long.MAX_VALUE
+          && now >= expiresAt - Math.min(refreshAhead, (expiresAt - obtainedAt) / 2);
+    }
   }
 
 }
@@ -20,13 +20,30 @@ import static org.openlmis.buq.i18n.MessageKeys.ERROR_SERVICE_REQUIRED;
 import static org.openlmis.buq.util.RequestHelper.createEntity;
 import static org.openlmis.buq.util.RequestHelper.createUri;
 
-import java.lang.reflect.Array;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.buq.ExecutorConfiguration;
 import org.openlmis.buq.dto.ResultDto;
 import org.openlmis.buq.util.DynamicPageTypeReference;
 import org.openlmis.buq.util.DynamicResultDtoTypeReference;
@@ -36,10 +53,14 @@ import org.openlmis.buq.util.RequestHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -49,15 +70,46 @@ import org.springframework.web.client.RestTemplate;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public abstract class BaseCommunicationService<T> {
+  private static final String ID_PARAMETER = "id";
+  private static final int UUID_LENGTH = 36;
+
   protected final Logger logger = LoggerFactory.getLogger(getClass());
 
   protected RestOperations restTemplate = new RestTemplate();
 
   protected AuthService authService;
 
+  protected Executor executor;
+
+  private Executor asyncExecutor;
+
   @Value("${request.maxUrlLength}")
   private int maxUrlLength;
 
+  @Value("${request.parallel.enabled}")
+  private boolean parallelRequestsEnabled;
+
+  @Value("${request.bulkSearch.enabled}")
+  private boolean bulkSearchEnabled;
+
+  @Value("${request.etagCache.maxBytes}")
+  private long etagCacheMaxBytes;
+
+  @Value("${request.etagCache.maxStale}")
+  private long etagCacheMaxStale;
+
+  private ETagCache etagCache;
+
+  private final SingleFlight singleFlight = new SingleFlight();
+
+  private ResiliencePolicy resiliencePolicy = ResiliencePolicy.disabled();
+
+  private OutboundMetrics outboundMetrics = new OutboundMetrics(null, getClass().getSimpleName());
+
+  private volatile boolean bulkSearchSupported = true;
+
+  private volatile boolean bulkSearchConfirmed;
+
   protected abstract String getServiceUrl();
 
   protected abstract String getUrl();
@@ -68,6 +120,15 @@ public abstract class BaseCommunicationService<T> {
 
   protected abstract String getServiceName();
 
+  /**
+   * Returns the function reading the id of an object of the resource. The objects of split
+   * responses are deduplicated by it; without it (the default) they are compared with
+   * {@code equals}.
+   */
+  protected Function<T, UUID> getIdExtractor() {
+    return null;
+  }
+
   /**
    * Return one object from service.
    *
@@ -105,10 +166,10 @@ public abstract class BaseCommunicationService<T> {
         .setAll(parameters);
 
     try {
-      return runWithTokenRetry(() -> restTemplate.exchange(
+      return runWithTokenRetry(token -> exchange(
           createUri(url, params),
           HttpMethod.GET,
-          createEntity(authService.obtainAccessToken()),
+          createEntity(token),
           type)).getBody();
     } catch (HttpStatusCodeException ex) {
       // rest template will handle 404 as an exception, instead of returning null
@@ -162,7 +223,7 @@ public abstract class BaseCommunicationService<T> {
 
     try {
       ResponseEntity<P[]> response = runWithTokenRetry(
-          () -> doListRequest(url, params, payload, method, type)
+          token -> doListRequest(url, params, payload, method, type, token)
       );
 
       return Stream.of(response.getBody()).collect(Collectors.toList());
@@ -177,9 +238,10 @@ public abstract class BaseCommunicationService<T> {
 
     try {
       RequestHeaders headers = RequestHeaders.init().setIfNoneMatch(etag);
-      ResponseEntity<P[]> response = restTemplate.exchange(
-          url, HttpMethod.GET, RequestHelper.createEntity(null, addAuthHeader(headers)), type
-      );
+      HttpEntity<Object> entity = RequestHelper.createEntity(null, addAuthHeader(headers));
+      ResponseEntity<P[]> response = resiliencePolicy.execute(HttpMethod.GET,
+          () -> outboundMetrics.record(URI.create(url), HttpMethod.GET,
+              () -> restTemplate.exchange(url, HttpMethod.GET, entity, type)));
 
       if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
         return new ServiceResponse<>(null, response.getHeaders(), false);
@@ -221,7 +283,7 @@ public abstract class BaseCommunicationService<T> {
 
     try {
       ResponseEntity<PageDto<P>> response = runWithTokenRetry(
-          () -> doPageRequest(url, params, payload, method, type)
+          token -> doPageRequest(url, params, payload, method, type, token)
       );
       return response.getBody();
     } catch (HttpStatusCodeException ex) {
@@ -229,6 +291,82 @@ public abstract class BaseCommunicationService<T> {
     }
   }
 
+  /**
+   * Return page of reference data T objects with the given ids. If the ids would not fit into
+   * a single URL and the service supports it (see {@link #getBulkSearchResourceUrl()}), the ids
+   * are sent in the body of one POST request. Otherwise they are sent as query parameters and
+   * the request is split into as many calls as needed. When the remote service answers the bulk
+   * search with 405 or 501, or with 404 before any bulk search succeeded, the query parameter
+   * variant is used from then on. Other rejections (400 or a later 404) fall back for that call
+   * only.
+   *
+   * @param ids        ids of requesting objects.
+   * @param parameters Map of additional query parameters.
+   * @return Page of reference data T objects.
+   */
+  protected Page<T> getPageByIds(Collection<UUID> ids, RequestParameters parameters) {
+    if (isBulkSearchNeeded(ids)) {
+      RequestParameters params = RequestParameters
+          .init()
+          .setAll(parameters)
+          .setPage(PageRequest.of(0, ids.size()));
+
+      try {
+        Page<T> page = getPage(getBulkSearchResourceUrl(), params, createBulkSearchBody(ids),
+            HttpMethod.POST, getResultClass());
+        bulkSearchConfirmed = true;
+        return page;
+      } catch (DataRetrievalException ex) {
+        if (isBulkSearchUnsupported(ex.getStatus())) {
+          logger.warn("Bulk search is not supported by {} (status: {}), falling back to GET",
+              getServiceUrl() + getUrl(), ex.getStatus());
+          bulkSearchSupported = false;
+        } else if (isBulkSearchRejected(ex.getStatus())) {
+          logger.warn("Bulk search was rejected by {} (status: {}), using GET for this call",
+              getServiceUrl() + getUrl(), ex.getStatus());
+        } else {
+          throw ex;
+        }
+      }
+    }
+
+    return getPage(RequestParameters.init().setAll(parameters).set(ID_PARAMETER, ids));
+  }
+
+  /**
+   * Returns the endpoint, relative to {@link #getUrl()}, that accepts ids in the request body.
+   * The default {@code null} means the service does not support it.
+   */
+  protected String getBulkSearchResourceUrl() {
+    return null;
+  }
+
+  protected Object createBulkSearchBody(Collection<UUID> ids) {
+    return Collections.singletonMap(ID_PARAMETER, ids);
+  }
+
+  private boolean isBulkSearchNeeded(Collection<UUID> ids) {
+    if (!bulkSearchEnabled || !bulkSearchSupported || null == getBulkSearchResourceUrl()
+        || ids.size() < 2) {
+      return false;
+    }
+
+    // each id is sent as "&id=<uuid>"; a rough estimate is enough to skip building the URL
+    int length = (getServiceUrl() + getUrl()).length()
+        + ids.size() * (ID_PARAMETER.length() + UUID_LENGTH + 2);
+
+    return length > maxUrlLength;
+  }
+
+  private boolean isBulkSearchUnsupported(HttpStatus status) {
+    return HttpStatus.METHOD_NOT_ALLOWED == status || HttpStatus.NOT_IMPLEMENTED == status
+        || HttpStatus.NOT_FOUND == status && !bulkSearchConfirmed;
+  }
+
+  private boolean isBulkSearchRejected(HttpStatus status) {
+    return HttpStatus.BAD_REQUEST == status || HttpStatus.NOT_FOUND == status;
+  }
+
   protected <P> ResultDto<P> getResult(String resourceUrl, RequestParameters parameters,
                                        Class<P> type) {
     String url = getServiceUrl() + getUrl() + resourceUrl;
@@ -236,102 +374,295 @@ public abstract class BaseCommunicationService<T> {
         .init()
         .setAll(parameters);
 
-    ResponseEntity<ResultDto<P>> response = runWithTokenRetry(() -> restTemplate.exchange(
+    ResponseEntity<ResultDto<P>> response = runWithTokenRetry(token -> exchange(
         createUri(url, params),
         HttpMethod.GET,
-        createEntity(authService.obtainAccessToken()),
+        createEntity(token),
         new DynamicResultDtoTypeReference<>(type)
     ));
 
     return response.getBody();
   }
 
-  private <E> ResponseEntity<E[]> doListRequest(String url, RequestParameters parameters,
-                                                Object payload, HttpMethod method,
-                                                Class<E[]> type) {
-    HttpEntity<Object> entity = RequestHelper
-        .createEntity(payload, authService.obtainAccessToken());
-    List<E[]> arrays = new ArrayList<>();
+  /**
+   * Return one object from service without blocking the caller.
+   *
+   * @param id UUID of requesting object.
+   * @return Future completed with the requesting reference data object, or with {@code null}
+   *         if it does not exist.
+   */
+  public CompletableFuture<T> findOneAsync(UUID id) {
+    return async(() -> findOne(id));
+  }
 
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      arrays.add(restTemplate.exchange(uri, method, entity, type).getBody());
+  /**
+   * Return all reference data T objects without blocking the caller.
+   *
+   * @param resourceUrl Endpoint url.
+   * @param parameters  Map of query parameters.
+   * @return Future completed with all reference data T objects.
+   */
+  public CompletableFuture<List<T>> findAllAsync(String resourceUrl,
+                                                 RequestParameters parameters) {
+    return async(() -> findAll(resourceUrl, parameters));
+  }
+
+  /**
+   * Return a page of reference data T objects without blocking the caller.
+   *
+   * @param parameters Map of query parameters.
+   * @return Future completed with the page of reference data T objects.
+   */
+  public CompletableFuture<Page<T>> getPageAsync(RequestParameters parameters) {
+    return async(() -> getPage(parameters));
+  }
+
+  /**
+   * Runs the call on the reference data I/O executor, which passes the security context and
+   * request attributes of the caller on. Without the executor the call runs in the caller's
+   * thread and the returned future is already completed.
+   */
+  protected <R> CompletableFuture<R> async(Supplier<R> call) {
+    if (null != asyncExecutor) {
+      return CompletableFuture.supplyAsync(call, asyncExecutor);
     }
 
-    E[] body = Merger
-        .ofArrays(arrays)
-        .withDefaultValue(() -> (E[]) Array.newInstance(type.getComponentType(), 0))
-        .merge();
+    CompletableFuture<R> future = new CompletableFuture<>();
 
-    return new ResponseEntity<>(body, HttpStatus.OK);
+    try {
+      future.complete(call.get());
+    } catch (RuntimeException ex) {
+      future.completeExceptionally(ex);
+    }
+
+    return future;
+  }
+
+  private <E> ResponseEntity<E[]> doListRequest(String url, RequestParameters parameters,
+                                                Object payload, HttpMethod method,
+                                                Class<E[]> type, String token) {
+    HttpEntity<Object> entity = RequestHelper.createEntity(payload, token);
+    Merger.Accumulator<E> merged = createAccumulator(type.getComponentType());
+    exchangeAll(
+        splitRequest(url, parameters, method),
+        uri -> exchange(uri, method, entity, type).getBody(),
+        merged::addAll);
+
+    return new ResponseEntity<>(merged.toArray(type), HttpStatus.OK);
   }
 
   private <E> ResponseEntity<PageDto<E>> doPageRequest(String url,
                                                        RequestParameters parameters,
                                                        Object payload,
                                                        HttpMethod method,
-                                                       Class<E> type) {
-    HttpEntity<Object> entity = RequestHelper
-        .createEntity(payload, authService.obtainAccessToken());
+                                                       Class<E> type,
+                                                       String token) {
+    HttpEntity<Object> entity = RequestHelper.createEntity(payload, token);
     ParameterizedTypeReference<PageDto<E>> parameterizedType =
         new DynamicPageTypeReference<>(type);
-    List<PageDto<E>> pages = new ArrayList<>();
+    Merger.Accumulator<E> merged = createAccumulator(type);
+    exchangeAll(
+        splitRequest(url, parameters, method),
+        uri -> exchange(uri, method, entity, parameterizedType).getBody(),
+        merged::addPage);
+
+    return new ResponseEntity<>(merged.toPage(), HttpStatus.OK);
+  }
+
+  /**
+   * Creates the accumulator of the objects of split responses. Objects of the resource are
+   * deduplicated by their ids, if the resource has an id extractor.
+   */
+  private <E> Merger.Accumulator<E> createAccumulator(Class<?> elementType) {
+    Function<T, UUID> idExtractor = getIdExtractor();
 
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      pages.add(restTemplate.exchange(uri, method, entity, parameterizedType).getBody());
+    if (null == idExtractor || !getResultClass().equals(elementType)) {
+      return new Merger.Accumulator<>();
     }
 
-    PageDto<E> body = Merger
-        .ofPages(pages)
-        .withDefaultValue(PageDto::new)
-        .merge();
+    return new Merger.Accumulator<>(element -> idExtractor.apply(getResultClass().cast(element)));
+  }
+
+  /**
+   * Splits the request so that no URL is longer than {@code request.maxUrlLength} and records
+   * the number of calls it was split into.
+   */
+  private URI[] splitRequest(String url, RequestParameters parameters, HttpMethod method) {
+    URI[] uris = RequestHelper.splitRequest(url, parameters, maxUrlLength);
+
+    if (uris.length > 0) {
+      outboundMetrics.recordChunks(uris[0], method, uris.length);
+    }
 
-    return new ResponseEntity<>(body, HttpStatus.OK);
+    return uris;
   }
 
-  protected <P> ResponseEntity<P> runWithTokenRetry(HttpTask<P> task) {
+  private <P> ResponseEntity<P> exchange(URI uri, HttpMethod method, HttpEntity<?> entity,
+                                         Class<P> type) {
+    return exchange(uri, method, entity, type,
+        request -> restTemplate.exchange(uri, method, request, type));
+  }
+
+  private <P> ResponseEntity<P> exchange(URI uri, HttpMethod method, HttpEntity<?> entity,
+                                         ParameterizedTypeReference<P> type) {
+    return exchange(uri, method, entity, type.getType(),
+        request -> restTemplate.exchange(uri, method, request, type));
+  }
+
+  /**
+   * Sends the request according to the resilience policy of the service. Identical GET requests
+   * (same URI, response type and authorization) that are sent at the same time share one call
+   * to the remote service and its response.
+   */
+  private <P> ResponseEntity<P> exchange(URI uri, HttpMethod method, HttpEntity<?> entity,
+                                         Type type,
+                                         Function<HttpEntity<?>, ResponseEntity<P>> call) {
+    if (HttpMethod.GET != method) {
+      return resiliencePolicy.execute(method,
+          () -> outboundMetrics.record(uri, method, () -> call.apply(entity)));
+    }
+
+    String authorization = entity.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+    String key = method + " " + ETagCache.key(uri, type) + " "
+        + (null == authorization ? "" : DigestUtils.sha256Hex(authorization));
+
+    return singleFlight.execute(key, () -> exchangeWithETag(uri, entity, type,
+        request -> resiliencePolicy.execute(method,
+            () -> outboundMetrics.record(uri, method, () -> call.apply(request)))));
+  }
+
+  /**
+   * Sends the GET request. If a request to the same URI has been answered with an ETag before,
+   * the request is sent with {@code If-None-Match} and a {@code 304 Not Modified} response is
+   * answered with the stored body, so the unchanged body is not transferred and parsed again.
+   * When the remote service is unavailable, a stored body confirmed no longer than
+   * {@code request.etagCache.maxStale} milliseconds ago is served instead of failing.
+   */
+  private <P> ResponseEntity<P> exchangeWithETag(URI uri, HttpEntity<?> entity, Type type,
+      Function<HttpEntity<?>, ResponseEntity<P>> call) {
+    if (null == etagCache) {
+      return call.apply(entity);
+    }
+
+    ETagCache.Entry cached = etagCache.get(uri, type);
+    HttpEntity<?> request = entity;
+
+    if (null != cached) {
+      HttpHeaders headers = new HttpHeaders();
+      headers.putAll(entity.getHeaders());
+      headers.setIfNoneMatch(cached.getEtag());
+      request = new HttpEntity<>(entity.getBody(), headers);
+    }
+
+    ResponseEntity<P> response;
+
     try {
-      return task.run();
-    } catch (HttpStatusCodeException ex) {
-      if (HttpStatus.UNAUTHORIZED == ex.getStatusCode()) {
-        // the token has (most likely) expired - clear the cache and retry once
-        authService.clearTokenCache();
-        return task.run();
-      }
-      throw ex;
+      response = call.apply(request);
+    } catch (RuntimeException ex) {
+      return serveStored(uri, cached, ex);
+    }
+
+    if (null != cached && HttpStatus.NOT_MODIFIED == response.getStatusCode()) {
+      etagCache.put(uri, type, cached.getEtag(), cached.getBody(), cached.getLength());
+      return new ResponseEntity<>(cached.<P>getBody(), response.getHeaders(), HttpStatus.OK);
+    }
+
+    store(uri, type, cached, response);
+    return response;
+  }
+
+  /**
+   * Keeps the body of the response with its ETag. A response without an ETag, or with a body of
+   * unknown length that cannot be weighed, replaces the previously stored body with nothing.
+   */
+  private void store(URI uri, Type type, ETagCache.Entry cached, ResponseEntity<?> response) {
+    HttpHeaders headers = response.getHeaders();
+    String etag = null == headers ? null : headers.getETag();
+    long length = null == headers ? -1 : headers.getContentLength();
+
+    if (null != etag && length >= 0 && null != response.getBody()) {
+      etagCache.put(uri, type, etag, response.getBody(), length);
+    } else if (null != cached) {
+      etagCache.remove(uri, type);
     }
   }
 
-  protected <P> ResponseEntity<P> runWithRetryAndTokenRetry(HttpTask<P> task) {
+  /**
+   * Answers a failed request with the stored body if the failure is transient and the body is
+   * not too old; otherwise rethrows the failure.
+   */
+  private <P> ResponseEntity<P> serveStored(URI uri, ETagCache.Entry cached,
+                                            RuntimeException failure) {
+    if (null == cached || !ResiliencePolicy.isTransient(failure)
+        || cached.getAge() > etagCacheMaxStale) {
+      throw failure;
+    }
+
+    logger.warn("{} is unavailable ({}), serving stored response of {}",
+        getServiceName(), failure.getMessage(), uri);
+    return new ResponseEntity<>(cached.<P>getBody(), HttpStatus.OK);
+  }
+
+  /**
+   * Executes the call for each of the given URIs and passes the results to the consumer in the
+   * same order, each one as soon as it and all results before it are available, so they do not
+   * have to be kept until all calls finish. If parallel requests are enabled and there is more
+   * than one URI, the calls are run on the reference data executor; otherwise they are run one
+   * after another in the caller's thread.
+   */
+  private <R> void exchangeAll(URI[] uris, Function<URI, R> call, Consumer<R> consumer) {
+    if (uris.length < 2 || !parallelRequestsEnabled || null == executor) {
+      for (URI uri : uris) {
+        consumer.accept(call.apply(uri));
+      }
+
+      return;
+    }
+
+    List<CompletableFuture<R>> futures = new ArrayList<>(uris.length);
+
+    for (URI uri : uris) {
+      futures.add(CompletableFuture.supplyAsync(() -> call.apply(uri), executor));
+    }
+
     try {
-      return task.run();
-    } catch (HttpStatusCodeException ex) {
-      if (HttpStatus.UNAUTHORIZED == ex.getStatusCode()) {
-        // the token has (most likely) expired - clear the cache and retry once
-        authService.clearTokenCache();
-        return runWithRetry(task);
+      for (int i = 0; i < futures.size(); ++i) {
+        consumer.accept(futures.get(i).join());
+        futures.set(i, null);
       }
-      if (ex.getStatusCode().is4xxClientError() || ex.getStatusCode().is5xxServerError()) {
-        return runWithTokenRetry(task);
+    } catch (CompletionException ex) {
+      futures.stream().filter(Objects::nonNull).forEach(future -> future.cancel(false));
+
+      // rethrow the original exception so token retry and error handling work as before
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
       }
       throw ex;
     }
   }
 
-  private <P> ResponseEntity<P> runWithRetry(HttpTask<P> task) {
+  protected <P> ResponseEntity<P> runWithTokenRetry(HttpTask<P> task) {
+    String token = authService.obtainAccessToken();
+
     try {
-      return task.run();
+      return task.run(token);
     } catch (HttpStatusCodeException ex) {
-      if (ex.getStatusCode().is4xxClientError() || ex.getStatusCode().is5xxServerError()) {
-        return task.run();
+      if (HttpStatus.UNAUTHORIZED == ex.getStatusCode()) {
+        // the token has (most likely) expired - clear the cache and retry once
+        authService.clearTokenCache(token);
+        return task.run(authService.obtainAccessToken());
       }
       throw ex;
     }
   }
 
+  /**
+   * A request made with the given access token.
+   */
   @FunctionalInterface
   protected interface HttpTask<T> {
 
-    ResponseEntity<T> run();
+    ResponseEntity<T> run(String token);
 
   }
 
@@ -349,15 +680,74 @@ public abstract class BaseCommunicationService<T> {
         ex.getResponseBodyAsString());
   }
 
+  /**
+   * Creates the store of ETags and bodies used to revalidate GET requests. The store is not
+   * created when {@code request.etagCache.maxBytes} is not positive.
+   */
+  @PostConstruct
+  public void initETagCache() {
+    if (etagCacheMaxBytes > 0) {
+      etagCache = new ETagCache(etagCacheMaxBytes);
+    }
+  }
+
+  /**
+   * Registers the number of requests that were answered with the response of an identical
+   * request sent at the same time, and records the duration, status and response size of each
+   * call to the remote service (see {@link OutboundMetrics}).
+   */
+  @Autowired
+  public void setMeterRegistry(MeterRegistry meterRegistry) {
+    outboundMetrics = new OutboundMetrics(meterRegistry, getClass().getSimpleName());
+    FunctionCounter
+        .builder("outbound.requests.coalesced", singleFlight, SingleFlight::getCoalescedCount)
+        .description("Requests answered with the response of an identical in-flight request")
+        .tag("service", getClass().getSimpleName())
+        .register(meterRegistry);
+  }
+
+  /**
+   * Creates the resilience policy of the service from the {@code request.resilience.*}
+   * properties (see {@link ResiliencePolicy#readSettings(Environment, String)}) and registers
+   * its metrics.
+   */
+  @Autowired
+  public void setResiliencePolicy(Environment environment, MeterRegistry meterRegistry) {
+    resiliencePolicy = new ResiliencePolicy(
+        ResiliencePolicy.readSettings(environment, getResourceName()), Clock.systemUTC());
+    resiliencePolicy.bindTo(meterRegistry, Tags.of("service", getClass().getSimpleName()));
+  }
+
+  /**
+   * Returns the name of the resource, which is the last segment of its URL (for example
+   * {@code facilities}).
+   */
+  protected String getResourceName() {
+    return StringUtils.substringAfterLast(StringUtils.removeEnd(getUrl(), "/"), "/");
+  }
+
   @Autowired
   public void setAuthService(AuthService authService) {
     this.authService = authService;
   }
 
-  void setRestTemplate(RestOperations template) {
+  @Autowired
+  public void setRestTemplate(RestOperations template) {
     this.restTemplate = template;
   }
 
+  @Autowired
+  public void setExecutor(
+      @Qualifier(ExecutorConfiguration.REFERENCE_DATA_EXECUTOR) Executor executor) {
+    this.executor = executor;
+  }
+
+  @Autowired
+  public void setAsyncExecutor(
+      @Qualifier(ExecutorConfiguration.REFERENCE_DATA_ASYNC_EXECUTOR) Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
   private RequestHeaders addAuthHeader(RequestHeaders headers) {
     return null == headers
         ? RequestHeaders.init().setAuth(authService.obtainAccessToken())
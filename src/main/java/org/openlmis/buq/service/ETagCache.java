@@ -0,0 +1,99 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the last ETag and body received for a GET request, so the request can be revalidated
+ * with {@code If-None-Match} and a {@code 304 Not Modified} response can be answered with the
+ * stored body. Entries are keyed by the URI and the type the body was read as, and each one is
+ * weighed by the length of the body it was read from, so the total length of the kept bodies
+ * is bounded rather than their number. Each entry remembers when the body was last confirmed by
+ * the remote service, so it can be served for a limited time when the service is unavailable.
+ */
+class ETagCache {
+
+  private final Cache<String, Entry> entries;
+
+  ETagCache(long maxBytes) {
+    this.entries = Caffeine
+        .newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((String key, Entry entry) -> (int) Math.min(entry.getLength(), Integer.MAX_VALUE))
+        .build();
+  }
+
+  Entry get(URI uri, Type type) {
+    return entries.getIfPresent(key(uri, type));
+  }
+
+  void put(URI uri, Type type, String etag, Object body, long length) {
+    entries.put(key(uri, type), new Entry(etag, body, length, System.currentTimeMillis()));
+  }
+
+  void remove(URI uri, Type type) {
+    entries.invalidate(key(uri, type));
+  }
+
+  static String key(URI uri, Type type) {
+    return uri + " " + typeName(type);
+  }
+
+  private static String typeName(Type type) {
+    // the dynamic type references do not implement toString, so the name is built here
+    if (type instanceof ParameterizedType) {
+      ParameterizedType parameterized = (ParameterizedType) type;
+
+      return typeName(parameterized.getRawType()) + Arrays
+          .stream(parameterized.getActualTypeArguments())
+          .map(ETagCache::typeName)
+          .collect(Collectors.joining(",", "<", ">"));
+    }
+
+    return type.getTypeName();
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static final class Entry {
+    private final String etag;
+    @Getter(AccessLevel.NONE)
+    private final Object body;
+    private final long length;
+    private final long storedAt;
+
+    // entries are keyed by the type the body was read as, so the caller asks for that type
+    @SuppressWarnings("unchecked")
+    <P> P getBody() {
+      return (P) body;
+    }
+
+    long getAge() {
+      return System.currentTimeMillis() - storedAt;
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.openlmis.buq.util.OutboundCallSummary;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Records the calls of a communication service to the remote service: the duration and status
+ * of each call, the size of its response and the number of calls a split request was sent as.
+ * Calls are tagged with the path of the endpoint, with ids replaced by {@code {id}}, so all
+ * calls to one endpoint share the same meters. Each call is also added to the summary of the
+ * current request (see {@link OutboundCallSummary}).
+ */
+class OutboundMetrics {
+
+  private static final Pattern UUID_SEGMENT = Pattern.compile(
+      "/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(?=/|$)");
+
+  private static final String SERVICE = "service";
+  private static final String URI_TAG = "uri";
+  private static final String METHOD = "method";
+
+  private final MeterRegistry registry;
+  private final String service;
+
+  /**
+   * Creates the metrics of the given service. Without a registry only the request summary is
+   * kept.
+   */
+  OutboundMetrics(MeterRegistry registry, String service) {
+    this.registry = registry;
+    this.service = service;
+  }
+
+  /**
+   * Sends the request and records its duration, status and response size.
+   */
+  <P> ResponseEntity<P> record(URI uri, HttpMethod method, Supplier<ResponseEntity<P>> call) {
+    String template = template(uri);
+    // forget the size of a response not recorded here
+    ResponseSizeInterceptor.takeResponseSize();
+    long start = System.nanoTime();
+    String status = "UNKNOWN";
+
+    try {
+      ResponseEntity<P> response = call.get();
+      status = String.valueOf(response.getStatusCodeValue());
+      return response;
+    } catch (HttpStatusCodeException ex) {
+      status = String.valueOf(ex.getRawStatusCode());
+      throw ex;
+    } catch (ResourceAccessException ex) {
+      status = "IO_ERROR";
+      throw ex;
+    } finally {
+      long duration = System.nanoTime() - start;
+      long size = ResponseSizeInterceptor.takeResponseSize();
+
+      OutboundCallSummary.record(method + " " + template, duration, size);
+
+      if (null != registry) {
+        Timer
+            .builder("outbound.requests")
+            .description("Calls to other services")
+            .tags(SERVICE, service, URI_TAG, template, METHOD, method.name(), "status", status)
+            .register(registry)
+            .record(duration, TimeUnit.NANOSECONDS);
+
+        if (size >= 0) {
+          DistributionSummary
+              .builder("outbound.response.size")
+              .baseUnit("bytes")
+              .tags(SERVICE, service, URI_TAG, template, METHOD, method.name())
+              .register(registry)
+              .record(size);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records the number of calls a request to the given endpoint was split into.
+   */
+  void recordChunks(URI uri, HttpMethod method, int chunks) {
+    if (null == registry) {
+      return;
+    }
+
+    DistributionSummary
+        .builder("outbound.requests.chunks")
+        .description("Number of calls a request was split into because of the URL length")
+        .tags(SERVICE, service, URI_TAG, template(uri), METHOD, method.name())
+        .register(registry)
+        .record(chunks);
+  }
+
+  /**
+   * Returns the path of the URI with ids replaced by {@code {id}}.
+   */
+  static String template(URI uri) {
+    String path = uri.getRawPath();
+    return null == path ? "" : UUID_SEGMENT.matcher(path).replaceAll("/{id}");
+  }
+
+}
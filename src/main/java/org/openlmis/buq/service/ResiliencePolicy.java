@@ -0,0 +1,313 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Guards the calls to a remote service.
+ * <ul>
+ *   <li>Transient failures (timeouts, connection errors, 429, 502, 503 and 504) of idempotent
+ *   requests are retried with exponential backoff and full jitter.</li>
+ *   <li>A circuit breaker opens after the given number of consecutive transient failures and
+ *   rejects calls until the open duration has passed. Then a single trial call decides whether
+ *   it closes again.</li>
+ *   <li>A bulkhead limits the number of concurrent calls. A call waits for a free slot at most
+ *   for the given time.</li>
+ * </ul>
+ * Rejected calls fail with {@code 503 Service Unavailable}, so they are handled like any other
+ * unavailability of the remote service.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+class ResiliencePolicy {
+
+  private static final String PROPERTY_PREFIX = "request.resilience.";
+
+  private final Settings settings;
+  private final Clock clock;
+  private final Semaphore bulkhead;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private boolean trialInProgress;
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong rejectedByCircuitBreaker = new AtomicLong();
+  private final AtomicLong rejectedByBulkhead = new AtomicLong();
+
+  ResiliencePolicy(Settings settings, Clock clock) {
+    this.settings = settings;
+    this.clock = clock;
+    this.bulkhead = settings.maxConcurrentCalls > 0
+        ? new Semaphore(settings.maxConcurrentCalls, true)
+        : null;
+  }
+
+  /**
+   * Creates a policy that neither retries nor rejects any call.
+   */
+  static ResiliencePolicy disabled() {
+    return new ResiliencePolicy(new Settings(1, 0, 0, 0, 0, 0, 0), Clock.systemUTC());
+  }
+
+  /**
+   * Reads the settings of the given resource. Each setting can be set for the resource
+   * ({@code request.resilience.<name>.<setting>}) or for all resources
+   * ({@code request.resilience.<setting>}).
+   */
+  static Settings readSettings(Environment environment, String name) {
+    return new Settings(
+        readSetting(environment, name, "maxAttempts"),
+        readSetting(environment, name, "initialBackoff"),
+        readSetting(environment, name, "maxBackoff"),
+        readSetting(environment, name, "failureThreshold"),
+        readSetting(environment, name, "openDuration"),
+        (int) readSetting(environment, name, "maxConcurrentCalls"),
+        readSetting(environment, name, "maxWait"));
+  }
+
+  /**
+   * Executes the call according to the policy.
+   *
+   * @param method method of the request, only idempotent requests are retried.
+   * @param call   the call to execute.
+   * @return the result of the call.
+   */
+  <T> T execute(HttpMethod method, Supplier<T> call) {
+    for (int attempt = 1; ; ++attempt) {
+      try {
+        return executeOnce(call);
+      } catch (RuntimeException ex) {
+        if (attempt >= settings.maxAttempts || !isIdempotent(method) || !isRetryable(ex)) {
+          throw ex;
+        }
+
+        retries.incrementAndGet();
+        backOff(attempt, ex);
+      }
+    }
+  }
+
+  /**
+   * Checks whether the failure is likely to go away when the request is repeated.
+   */
+  static boolean isTransient(RuntimeException ex) {
+    if (ex instanceof ResourceAccessException) {
+      return true;
+    }
+
+    if (ex instanceof HttpStatusCodeException) {
+      HttpStatus status = ((HttpStatusCodeException) ex).getStatusCode();
+
+      return HttpStatus.TOO_MANY_REQUESTS == status || HttpStatus.BAD_GATEWAY == status
+          || HttpStatus.SERVICE_UNAVAILABLE == status || HttpStatus.GATEWAY_TIMEOUT == status;
+    }
+
+    return false;
+  }
+
+  /**
+   * Registers the state of the circuit breaker, the free slots of the bulkhead and the number of
+   * retried and rejected calls.
+   */
+  void bindTo(MeterRegistry registry, Tags tags) {
+    Gauge
+        .builder("outbound.circuitbreaker.state", this, policy -> policy.getState().ordinal())
+        .description("State of the circuit breaker: 0 - closed, 1 - open, 2 - half open")
+        .tags(tags)
+        .register(registry);
+    FunctionCounter
+        .builder("outbound.circuitbreaker.rejected", rejectedByCircuitBreaker, AtomicLong::get)
+        .tags(tags)
+        .register(registry);
+    FunctionCounter
+        .builder("outbound.retries", retries, AtomicLong::get)
+        .tags(tags)
+        .register(registry);
+
+    if (null != bulkhead) {
+      Gauge
+          .builder("outbound.bulkhead.available", bulkhead, Semaphore::availablePermits)
+          .tags(tags)
+          .register(registry);
+      FunctionCounter
+          .builder("outbound.bulkhead.rejected", rejectedByBulkhead, AtomicLong::get)
+          .tags(tags)
+          .register(registry);
+    }
+  }
+
+  synchronized State getState() {
+    if (State.OPEN == state && clock.millis() - openedAt >= settings.openDuration) {
+      return State.HALF_OPEN;
+    }
+
+    return state;
+  }
+
+  private <T> T executeOnce(Supplier<T> call) {
+    acquireBulkhead();
+
+    try {
+      acquireCircuitBreaker();
+
+      try {
+        T result = call.get();
+        onSuccess();
+        return result;
+      } catch (RuntimeException ex) {
+        if (isTransient(ex)) {
+          onFailure();
+        } else {
+          // the remote service has answered, so it is available
+          onSuccess();
+        }
+        throw ex;
+      }
+    } finally {
+      if (null != bulkhead) {
+        bulkhead.release();
+      }
+    }
+  }
+
+  private void acquireBulkhead() {
+    if (null == bulkhead) {
+      return;
+    }
+
+    boolean acquired;
+
+    try {
+      acquired = bulkhead.tryAcquire(settings.maxWait, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+
+    if (!acquired) {
+      rejectedByBulkhead.incrementAndGet();
+      throw new CallNotPermittedException("Too many concurrent calls");
+    }
+  }
+
+  private synchronized void acquireCircuitBreaker() {
+    if (settings.failureThreshold <= 0 || State.CLOSED == state) {
+      return;
+    }
+
+    if (State.OPEN == getState() || trialInProgress) {
+      rejectedByCircuitBreaker.incrementAndGet();
+      throw new CallNotPermittedException("Circuit breaker is open");
+    }
+
+    state = State.HALF_OPEN;
+    trialInProgress = true;
+  }
+
+  private synchronized void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInProgress = false;
+  }
+
+  private synchronized void onFailure() {
+    trialInProgress = false;
+    ++consecutiveFailures;
+
+    if (settings.failureThreshold > 0
+        && (State.HALF_OPEN == state || consecutiveFailures >= settings.failureThreshold)) {
+      state = State.OPEN;
+      openedAt = clock.millis();
+    }
+  }
+
+  private boolean isRetryable(RuntimeException ex) {
+    return !(ex instanceof CallNotPermittedException) && isTransient(ex);
+  }
+
+  private boolean isIdempotent(HttpMethod method) {
+    return HttpMethod.GET == method || HttpMethod.HEAD == method
+        || HttpMethod.OPTIONS == method || HttpMethod.PUT == method
+        || HttpMethod.DELETE == method;
+  }
+
+  private void backOff(int attempt, RuntimeException failure) {
+    long backoff = Math.min(settings.maxBackoff, settings.initialBackoff << (attempt - 1));
+
+    if (backoff <= 0) {
+      return;
+    }
+
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw failure;
+    }
+  }
+
+  private static long readSetting(Environment environment, String name, String setting) {
+    Long value = environment.getProperty(PROPERTY_PREFIX + name + "." + setting, Long.class);
+
+    return null == value
+        ? environment.getProperty(PROPERTY_PREFIX + setting, Long.class, 0L)
+        : value;
+  }
+
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static final class Settings {
+    private final long maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long failureThreshold;
+    private final long openDuration;
+    private final int maxConcurrentCalls;
+    private final long maxWait;
+  }
+
+  static final class CallNotPermittedException extends HttpServerErrorException {
+
+    CallNotPermittedException(String reason) {
+      super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+
+  }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Counts the bytes of each response body as it is read. When the body is closed, the count is
+ * handed to the calling thread, which takes it with {@link #takeResponseSize()} after the call
+ * has returned.
+ */
+public class ResponseSizeInterceptor implements HttpResponseInterceptor {
+
+  private static final ThreadLocal<Long> RESPONSE_SIZE = new ThreadLocal<>();
+
+  @Override
+  public void process(HttpResponse response, HttpContext context) {
+    HttpEntity entity = response.getEntity();
+
+    if (null == entity) {
+      RESPONSE_SIZE.set(0L);
+    } else {
+      RESPONSE_SIZE.remove();
+      response.setEntity(new CountingEntity(entity));
+    }
+  }
+
+  /**
+   * Returns the number of bytes of the last response received by the current thread and
+   * forgets it.
+   *
+   * @return the number of bytes, or -1 if it is not known.
+   */
+  static long takeResponseSize() {
+    Long size = RESPONSE_SIZE.get();
+    RESPONSE_SIZE.remove();
+
+    return null == size ? -1 : size;
+  }
+
+  private static final class CountingEntity extends HttpEntityWrapper {
+    private CountingInputStream content;
+
+    private CountingEntity(HttpEntity entity) {
+      super(entity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      if (null == content || isRepeatable()) {
+        content = new CountingInputStream(super.getContent());
+      }
+
+      return content;
+    }
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result = super.read();
+
+      if (result >= 0) {
+        ++count;
+      }
+
+      return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int result = super.read(buffer, offset, length);
+
+      if (result > 0) {
+        count += result;
+      }
+
+      return result;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+      long result = super.skip(length);
+      count += result;
+
+      return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+      RESPONSE_SIZE.set(count);
+      super.close();
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical calls share one execution. The first caller for a key runs the
+ * call; callers that arrive while it is still running wait for it and get the same result or
+ * exception instead of running the call again. Once the call finishes, the next caller for the
+ * key runs it again, so results are never kept.
+ */
+class SingleFlight {
+
+  private final ConcurrentMap<String, CompletableFuture<Object>> calls =
+      new ConcurrentHashMap<>();
+
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Runs the call, or waits for the identical call that is already running.
+   *
+   * @param key  identifies identical calls.
+   * @param call the call to run.
+   * @return the result of the call.
+   */
+  <T> T execute(String key, Supplier<T> call) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> running = calls.putIfAbsent(key, future);
+
+    if (null != running) {
+      coalesced.incrementAndGet();
+
+      // the running call has the same key, so it is the same call and returns the same type
+      @SuppressWarnings("unchecked")
+      T shared = (T) join(running);
+      return shared;
+    }
+
+    try {
+      T result = call.get();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      calls.remove(key, future);
+    }
+  }
+
+  /**
+   * Returns how many calls have been answered with the result of another call.
+   */
+  long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  private static Object join(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      // rethrow the original exception, so callers handle it the same way as the first caller
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.buq;
+
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+
+/**
+ * Facilities whose bottom-up quantifications the current user may give final approval to.
+ * Users with the MOH approval right approve facilities other than primary health care ones,
+ * users with the PORALG approval right approve primary health care facilities, and users with
+ * both rights approve all facilities. The scope is determined once per request, as it is the
+ * same for every bottom-up quantification in it.
+ */
+final class ApprovalScope {
+
+  private final boolean moh;
+  private final boolean poralg;
+
+  ApprovalScope(boolean moh, boolean poralg) {
+    this.moh = moh;
+    this.poralg = poralg;
+  }
+
+  /**
+   * Checks if the user may approve nothing.
+   */
+  boolean isEmpty() {
+    return !moh && !poralg;
+  }
+
+  /**
+   * Checks if the user may approve bottom-up quantifications of the given facility.
+   */
+  boolean allows(FacilityDto facility) {
+    if (moh && poralg) {
+      return true;
+    }
+
+    if (isEmpty()) {
+      return false;
+    }
+
+    return poralg == facility.getType().isPrimaryHealthCare();
+  }
+
+}
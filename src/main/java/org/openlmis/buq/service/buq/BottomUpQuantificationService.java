@@ -30,6 +30,7 @@ import java.time.ZonedDateTime;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,13 +40,13 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.joda.money.CurrencyUnit;
-import org.joda.money.Money;
 import org.openlmis.buq.ApproveFacilityForecastingStats;
 import org.openlmis.buq.domain.BaseEntity;
 import org.openlmis.buq.domain.Remark;
@@ -56,10 +57,8 @@ import org.openlmis.buq.domain.buq.BottomUpQuantificationSourceOfFund;
 import org.openlmis.buq.domain.buq.BottomUpQuantificationStatus;
 import org.openlmis.buq.domain.buq.BottomUpQuantificationStatusChange;
 import org.openlmis.buq.domain.buq.Rejection;
-import org.openlmis.buq.domain.productgroup.ProductGroup;
 import org.openlmis.buq.domain.sourceoffund.SourceOfFund;
 import org.openlmis.buq.dto.BottomUpQuantificationGroupCostsData;
-import org.openlmis.buq.dto.ResultDto;
 import org.openlmis.buq.dto.buq.BottomUpQuantificationDto;
 import org.openlmis.buq.dto.buq.BottomUpQuantificationLineItemDto;
 import org.openlmis.buq.dto.buq.RejectionDto;
@@ -87,24 +86,25 @@ import org.openlmis.buq.repository.buq.BottomUpQuantificationLineItemRepository;
 import org.openlmis.buq.repository.buq.BottomUpQuantificationRepository;
 import org.openlmis.buq.repository.buq.BottomUpQuantificationSourceOfFundRepository;
 import org.openlmis.buq.repository.buq.BottomUpQuantificationStatusChangeRepository;
-import org.openlmis.buq.repository.productgroup.ProductGroupRepository;
 import org.openlmis.buq.repository.sourceoffund.SourceOfFundRepository;
 import org.openlmis.buq.service.CsvService;
-import org.openlmis.buq.service.RequestParameters;
+import org.openlmis.buq.service.productgroup.ProductGroupResolver;
 import org.openlmis.buq.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.buq.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.buq.service.referencedata.PeriodReferenceDataService;
 import org.openlmis.buq.service.referencedata.ProgramReferenceDataService;
 import org.openlmis.buq.service.referencedata.RightReferenceDataService;
-import org.openlmis.buq.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.buq.service.referencedata.SupplyLineReferenceDataService;
+import org.openlmis.buq.service.referencedata.SupervisoryNodeGraph;
 import org.openlmis.buq.service.referencedata.UserReferenceDataService;
 import org.openlmis.buq.service.referencedata.UserRoleAssignmentsReferenceDataService;
 import org.openlmis.buq.service.remark.RemarkService;
+import org.openlmis.buq.service.role.PermissionService;
 import org.openlmis.buq.util.AuthenticationHelper;
 import org.openlmis.buq.util.FacilitySupportsProgramHelper;
+import org.openlmis.buq.util.FutureHelper;
 import org.openlmis.buq.util.Message;
 import org.openlmis.buq.util.Pagination;
+import org.openlmis.buq.util.RequestMemo;
 import org.openlmis.buq.validate.BottomUpQuantificationValidator;
 import org.openlmis.buq.web.buq.ApproveParams;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -176,13 +176,13 @@ public class BottomUpQuantificationService {
   private UserRoleAssignmentsReferenceDataService userRoleAssignmentsReferenceDataService;
 
   @Autowired
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+  private SupervisoryNodeGraph supervisoryNodeGraph;
 
   @Autowired
-  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+  private ProductGroupResolver productGroupResolver;
 
   @Autowired
-  private ProductGroupRepository productGroupRepository;
+  private PermissionService permissionService;
 
   @Autowired
   private BottomUpQuantificationLineItemRepository bottomUpQuantificationLineItemRepository;
@@ -210,10 +210,19 @@ public class BottomUpQuantificationService {
       UUID processingPeriodId) {
     validatePreparationParams(facilityId, programId, processingPeriodId);
 
-    FacilityDto facility = findFacility(facilityId);
-    ProgramDto program = findProgram(programId);
+    // the lookups are independent, so they run at the same time
+    CompletableFuture<FacilityDto> facilityFuture = facilityReferenceDataService
+        .findOneAsync(facilityId);
+    CompletableFuture<ProgramDto> programFuture = programReferenceDataService
+        .findOneAsync(programId);
+    CompletableFuture<ProcessingPeriodDto> periodFuture = periodReferenceDataService
+        .findOneAsync(processingPeriodId);
+
+    FacilityDto facility = awaitResource(facilityFuture, facilityId, ERROR_FACILITY_NOT_FOUND);
+    ProgramDto program = awaitResource(programFuture, programId, ERROR_PROGRAM_NOT_FOUND);
     facilitySupportsProgramHelper.checkIfFacilitySupportsProgram(facility, program.getId());
-    ProcessingPeriodDto period = findPeriod(processingPeriodId);
+    ProcessingPeriodDto period = awaitResource(periodFuture, processingPeriodId,
+        ERROR_PROCESSING_PERIOD_NOT_FOUND);
 
     List<RequisitionLineItemDataProjection> requisitionLineItemsData =
         bottomUpQuantificationRepository.getRequisitionLineItemsData(facility.getId(),
@@ -255,7 +264,7 @@ public class BottomUpQuantificationService {
   private void assignInitialSupervisoryNode(BottomUpQuantification bottomUpQuantification) {
     if (bottomUpQuantification.isApprovable()
             && bottomUpQuantification.getSupervisoryNodeId() == null) {
-      SupervisoryNodeDto supervisoryNode = supervisoryNodeReferenceDataService.findSupervisoryNode(
+      SupervisoryNodeDto supervisoryNode = supervisoryNodeGraph.findSupervisoryNode(
               bottomUpQuantification.getProgramId(),
               bottomUpQuantification.getFacilityId());
       if (supervisoryNode != null) {
@@ -438,17 +447,19 @@ public class BottomUpQuantificationService {
     BottomUpQuantification updatedBottomUpQuantification =
         updateBottomUpQuantification(bottomUpQuantificationImporter, bottomUpQuantificationId);
 
+    // the routing is answered from the local graph while the period is being fetched
+    CompletableFuture<ProcessingPeriodDto> periodFuture = periodReferenceDataService
+        .findOneAsync(updatedBottomUpQuantification.getProcessingPeriodId());
+
     UserDto user = authenticationHelper.getCurrentUser();
+    SupervisoryNodeDto supervisoryNodeDto = supervisoryNodeGraph
+        .getNode(updatedBottomUpQuantification.getSupervisoryNodeId());
 
-    SupervisoryNodeDto supervisoryNodeDto = supervisoryNodeReferenceDataService
-            .findOne(updatedBottomUpQuantification.getSupervisoryNodeId());
-    ProcessingPeriodDto period = periodReferenceDataService
-            .findOne(updatedBottomUpQuantification.getProcessingPeriodId());
+    ProcessingPeriodDto period = FutureHelper.join(periodFuture);
     List<SupplyLineDto> supplyLines = period.isReportOnly()
             ? Collections.emptyList()
-            : supplyLineReferenceDataService
-              .search(updatedBottomUpQuantification.getProgramId(),
-                      updatedBottomUpQuantification.getSupervisoryNodeId());
+            : supervisoryNodeGraph.getSupplyLines(updatedBottomUpQuantification.getProgramId(),
+                updatedBottomUpQuantification.getSupervisoryNodeId());
     ApproveParams approveParams =
             new ApproveParams(user, supervisoryNodeDto, supplyLines, period);
     doApprove(updatedBottomUpQuantification, approveParams);
@@ -663,7 +674,7 @@ public class BottomUpQuantificationService {
     }
 
     return createProductsCostData(isDistrictLevel, geographicZoneId, subZones,
-        bottomUpQuantificationList);
+        bottomUpQuantificationList, getApprovalScope());
   }
 
 
@@ -728,11 +739,12 @@ public class BottomUpQuantificationService {
         .searchForFinalApproval(processingPeriodId, programNodePairs, pageable);
 
     if (geographicZoneId != null) {
+      Map<UUID, FacilityDto> facilities = findFacilities(bottomUpQuantifications.getContent());
       List<BottomUpQuantification> bottomUpQuantificationsFilteredByZone =
           bottomUpQuantifications.getContent()
               .stream()
               .filter(buq -> {
-                FacilityDto facility = findFacility(buq.getFacilityId());
+                FacilityDto facility = getResolvedFacility(facilities, buq.getFacilityId());
                 GeographicZoneDto geographicZoneDto = facility.getGeographicZone();
 
                 return isZoneInHierarchy(geographicZoneId, geographicZoneDto);
@@ -776,26 +788,29 @@ public class BottomUpQuantificationService {
     Page<BottomUpQuantification> bottomUpQuantifications =
         getBottomUpQuantificationsForFinalApproval(programId, processingPeriodId,
             geographicZoneId, pageable);
-    List<ProductGroup> productGroups = productGroupRepository.findAll();
+    ApprovalScope approvalScope = getApprovalScope();
+
+    if (approvalScope.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Map<UUID, FacilityDto> facilities = findFacilities(bottomUpQuantifications.getContent());
+    ProductGroupCostRollup rollup = createCostRollup(bottomUpQuantifications.getContent());
 
     return bottomUpQuantifications.stream()
-        .filter(buq -> {
-          FacilityDto facility = facilityReferenceDataService.findOne(buq.getFacilityId());
-          return checkFacilityTypeAndPermission(facility);
-        })
-        .map(buq -> buildBottomUpQuantificationGroupCostsData(buq, productGroups))
+        .filter(buq -> approvalScope.allows(getResolvedFacility(facilities, buq.getFacilityId())))
+        .map(buq -> buildBottomUpQuantificationGroupCostsData(buq, rollup))
         .collect(Collectors.toList());
   }
 
   private BottomUpQuantificationGroupCostsData buildBottomUpQuantificationGroupCostsData(
-      BottomUpQuantification bottomUpQuantification, List<ProductGroup> productGroups) {
+      BottomUpQuantification bottomUpQuantification, ProductGroupCostRollup rollup) {
     BottomUpQuantificationGroupCostsData bottomUpQuantificationGroupCostsData =
         new BottomUpQuantificationGroupCostsData();
     bottomUpQuantificationGroupCostsData.setBottomUpQuantification(
         bottomUpQuantificationDtoBuilder.buildDto(bottomUpQuantification));
     bottomUpQuantificationGroupCostsData.setCalculatedGroupsCosts(
-        calculateProductGroupsCost(Collections.singletonList(bottomUpQuantification),
-            productGroups)
+        rollup.calculate(Collections.singletonList(bottomUpQuantification))
     );
     return bottomUpQuantificationGroupCostsData;
   }
@@ -812,80 +827,34 @@ public class BottomUpQuantificationService {
 
   private List<ProductGroupsCostData> createProductsCostData(boolean isDistrictLevel,
       UUID geographicZoneId, Set<UUID> subZones,
-      List<BottomUpQuantification> bottomUpQuantificationList) {
-    List<ProductGroupsCostData> productsCostsList = new ArrayList<>();
-    List<ProductGroup> productGroups = productGroupRepository.findAll();
+      List<BottomUpQuantification> bottomUpQuantificationList, ApprovalScope approvalScope) {
+    Map<UUID, FacilityDto> facilities = findFacilities(bottomUpQuantificationList);
+    ProductGroupCostRollup rollup = createCostRollup(bottomUpQuantificationList);
 
-    if (isDistrictLevel) {
-      List<BottomUpQuantification> bottomUpQuantificationsForCalculations =
-          bottomUpQuantificationList
-          .stream()
-          .filter(buq -> {
-            FacilityDto facility = facilityReferenceDataService.findOne(buq.getFacilityId());
-            return checkFacilityTypeAndPermission(facility)
-                && isGeographicZoneInHierarchy(facility.getGeographicZone(), geographicZoneId);
-          })
-          .collect(Collectors.toList());
+    for (BottomUpQuantification buq : bottomUpQuantificationList) {
+      FacilityDto facility = getResolvedFacility(facilities, buq.getFacilityId());
 
-      for (BottomUpQuantification buq : bottomUpQuantificationsForCalculations) {
-        ProductGroupsCostData productsCosts = new ProductGroupsCostData();
-        productsCosts.setDataSourceId(buq.getFacilityId());
+      if (!approvalScope.allows(facility)) {
+        continue;
+      }
 
-        Map<String, String> calculatedGroups =
-            calculateProductGroupsCost(Collections.singletonList(buq), productGroups);
-        productsCosts.setCalculatedGroupsCosts(calculatedGroups);
-        productsCosts.setBottomUpQuantificationIds(Collections.singletonList(buq.getId()));
-        productsCosts.setDataSourceFacility(true);
-        productsCostsList.add(productsCosts);
+      if (isDistrictLevel) {
+        if (isGeographicZoneInHierarchy(facility.getGeographicZone(), geographicZoneId)) {
+          rollup.addAsFacility(buq);
+        }
+        continue;
       }
-    } else {
-      for (UUID locationId : subZones) {
-        Set<String> facilityTypes = new HashSet<>();
-
-        List<BottomUpQuantification> bottomUpQuantificationForZone = bottomUpQuantificationList
-            .stream()
-            .filter(buq -> {
-              FacilityDto facility = facilityReferenceDataService.findOne(buq.getFacilityId());
-              if (checkFacilityTypeAndPermission(facility)) {
-                boolean isInZone =
-                    isGeographicZoneInHierarchy(facility.getGeographicZone(), locationId);
-                if (isInZone) {
-                  facilityTypes.add(facility.getType().getName());
-                }
-                return isInZone;
-              }
-              return false;
-            })
-            .collect(Collectors.toList());
 
-        for (String facilityType : facilityTypes) {
-          List<BottomUpQuantification> bottomUpQuantificationsForCalculations =
-              bottomUpQuantificationForZone.stream()
-                  .filter(buq -> {
-                    FacilityDto facility =
-                        facilityReferenceDataService.findOne(buq.getFacilityId());
-                    return facility.getType().getName().equals(facilityType);
-                  })
-                  .collect(Collectors.toList());
-
-          ProductGroupsCostData productsCosts = new ProductGroupsCostData();
-          productsCosts.setFacilityType(facilityType);
-          productsCosts.setDataSourceId(locationId);
-          Map<String, String> calculatedGroups =
-              calculateProductGroupsCost(bottomUpQuantificationsForCalculations, productGroups);
-          productsCosts.setCalculatedGroupsCosts(calculatedGroups);
-
-          List<UUID> bottomUpQuantificationsForCostCalculationIds =
-              bottomUpQuantificationsForCalculations.stream()
-                  .map(BottomUpQuantification::getId)
-                  .collect(Collectors.toList());
-          productsCosts.setBottomUpQuantificationIds(bottomUpQuantificationsForCostCalculationIds);
-          productsCostsList.add(productsCosts);
+      // a facility is counted in every sub-zone on the path from its zone to the top
+      for (GeographicZoneDto zone = facility.getGeographicZone(); zone != null;
+          zone = zone.getParent()) {
+        if (subZones.contains(zone.getId())) {
+          rollup.addToZone(zone.getId(), facility.getType().getName(), buq);
         }
       }
     }
 
-    return productsCostsList;
+    return rollup.getCostData();
   }
 
   private boolean isGeographicZoneInHierarchy(GeographicZoneDto geographicZone,
@@ -905,85 +874,29 @@ public class BottomUpQuantificationService {
     return false;
   }
 
-  private boolean checkFacilityTypeAndPermission(FacilityDto facility) {
-    UserDto user = authenticationHelper.getCurrentUser();
-    RightDto mohRight = rightReferenceDataService.findRight(MOH_APPROVAL_RIGHT_NAME);
-    ResultDto<Boolean> hasMohRight = new ResultDto<>();
-    if (mohRight != null) {
-      hasMohRight = userReferenceDataService
-          .hasRight(user.getId(), mohRight.getId(), null, null, null);
-    } else {
-      hasMohRight.setResult(false);
-    }
-
-    RightDto poralgRight = rightReferenceDataService.findRight(PORALG_APPROVAL_RIGHT_NAME);
-    ResultDto<Boolean> hasPoralgRight = new ResultDto<>();
-    if (poralgRight != null) {
-      hasPoralgRight = userReferenceDataService
-          .hasRight(user.getId(), poralgRight.getId(), null, null, null);
-    } else {
-      hasPoralgRight.setResult(false);
-    }
-
-    if (hasMohRight.getResult() && hasPoralgRight.getResult()) {
-      return true;
-    } else if (Boolean.TRUE.equals(hasPoralgRight.getResult())) {
-      return facility.getType().isPrimaryHealthCare();
-    } else if (Boolean.TRUE.equals(hasMohRight.getResult())) {
-      return !facility.getType().isPrimaryHealthCare();
-    }
-
-    return false;
+  /**
+   * Determines which facilities the current user may give final approval to, based on the MOH
+   * and PORALG approval rights of the user, evaluated from the permissions of the user.
+   */
+  private ApprovalScope getApprovalScope() {
+    return new ApprovalScope(permissionService.hasRight(MOH_APPROVAL_RIGHT_NAME),
+        permissionService.hasRight(PORALG_APPROVAL_RIGHT_NAME));
   }
 
-  private Map<String, String> calculateProductGroupsCost(
-      List<BottomUpQuantification> bottomUpQuantifications,
-      List<ProductGroup> productGroups) {
-    Map<String, Money> groupsCalculations = new HashMap<>();
-    List<String> productGroupCodes = new ArrayList<>();
-    Map<String, String> productGroupsCodeNameMap = new HashMap<>();
-
-    for (ProductGroup group : productGroups) {
-      productGroupsCodeNameMap.put(group.getCode(), group.getName());
-      groupsCalculations.put(group.getName(), Money.of(CurrencyUnit.of(currencyCode), 0.00));
-      productGroupCodes.add(group.getCode());
-    }
-
-    for (BottomUpQuantification buq : bottomUpQuantifications) {
-      List<BottomUpQuantificationLineItem> lineItems = buq.getBottomUpQuantificationLineItems();
-
-      List<UUID> orderableIds = lineItems.stream()
-          .map(BottomUpQuantificationLineItem::getOrderableId)
-          .collect(Collectors.toList());
-      List<BasicOrderableDto> orderableDtos = new ArrayList<>();
-      if (!orderableIds.isEmpty()) {
-        orderableDtos = findOrderables(orderableIds);
-      }
-      Map<UUID, BasicOrderableDto> orderablesMap = new HashMap<>();
-      orderableDtos.forEach(orderable ->
-          orderablesMap.put(orderable.getId(), orderable));
-
-      for (BottomUpQuantificationLineItem lineItem : lineItems) {
-        BasicOrderableDto orderable = orderablesMap.get(lineItem.getOrderableId());
-        String orderableCodeSuffix = orderable.getProductCode().substring(0, 2);
-        if (productGroupCodes.contains(orderableCodeSuffix)) {
-          Money currentValue = groupsCalculations.get(
-              productGroupsCodeNameMap.get(orderableCodeSuffix));
-          groupsCalculations.put(productGroupsCodeNameMap.get(orderableCodeSuffix),
-              currentValue.plus(lineItem.getTotalCost()));
-        } else {
-          Money currentValue = groupsCalculations.get(
-              productGroupsCodeNameMap.get(null));
-          groupsCalculations.put(productGroupsCodeNameMap.get(null),
-              currentValue.plus(lineItem.getTotalCost()));
-        }
-      }
-    }
+  /**
+   * Creates the rollup of product group costs with the product groups of all orderables of the
+   * given bottom-up quantifications resolved at once.
+   */
+  private ProductGroupCostRollup createCostRollup(
+      List<BottomUpQuantification> bottomUpQuantifications) {
+    Set<UUID> orderableIds = bottomUpQuantifications
+        .stream()
+        .flatMap(buq -> buq.getBottomUpQuantificationLineItems().stream())
+        .map(BottomUpQuantificationLineItem::getOrderableId)
+        .collect(toSet());
 
-    return groupsCalculations.entrySet().stream()
-        .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
-          return entry.getValue().getAmount() + " " + entry.getValue().getCurrencyUnit().getCode();
-        }));
+    return new ProductGroupCostRollup(productGroupResolver.getProductGroups(),
+        CurrencyUnit.of(currencyCode), productGroupResolver.resolve(orderableIds));
   }
 
   private Map<String, Message> getErrors(BindingResult bindingResult) {
@@ -1132,31 +1045,49 @@ public class BottomUpQuantificationService {
     return bottomUpQuantificationToUpdate;
   }
 
-  private FacilityDto findFacility(UUID facilityId) {
-    return findResource(facilityId, facilityReferenceDataService::findOne,
-        ERROR_FACILITY_NOT_FOUND);
+  /**
+   * Retrieves the facilities of the given bottom-up quantifications with one search, so the
+   * cost calculation does not look every facility up once per zone and facility type.
+   */
+  private Map<UUID, FacilityDto> findFacilities(
+      Collection<BottomUpQuantification> bottomUpQuantifications) {
+    Set<UUID> facilityIds = bottomUpQuantifications
+        .stream()
+        .map(BottomUpQuantification::getFacilityId)
+        .collect(toSet());
+
+    if (facilityIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    return facilityReferenceDataService
+        .search(facilityIds)
+        .stream()
+        .collect(Collectors.toMap(FacilityDto::getId, Function.identity(),
+            (first, duplicate) -> first));
+  }
+
+  private FacilityDto getResolvedFacility(Map<UUID, FacilityDto> facilities, UUID facilityId) {
+    return findResource(facilityId, facilities::get, ERROR_FACILITY_NOT_FOUND);
   }
 
   private ProgramDto findProgram(UUID programId) {
-    return findResource(programId, programReferenceDataService::findOne,
+    return findResource(programId,
+        id -> RequestMemo.get("program", id, programReferenceDataService::findOne),
         ERROR_PROGRAM_NOT_FOUND);
   }
 
-  private ProcessingPeriodDto findPeriod(UUID programId) {
-    return findResource(programId, periodReferenceDataService::findOne,
-        ERROR_PROCESSING_PERIOD_NOT_FOUND);
-  }
-
   private BasicOrderableDto findOrderable(UUID orderableId) {
     return findResource(orderableId, orderableReferenceDataService::findOne,
         ERROR_ORDERABLE_NOT_FOUND);
   }
 
   private List<BasicOrderableDto> findOrderables(List<UUID> orderableIds) {
-    RequestParameters requestParameters = RequestParameters
-            .init()
-            .set("id", orderableIds);
-    return orderableReferenceDataService.findAll(requestParameters);
+    return orderableReferenceDataService.findByIds(orderableIds);
+  }
+
+  private <R> R awaitResource(CompletableFuture<R> future, UUID id, String errorMessage) {
+    return findResource(id, ignored -> FutureHelper.join(future), errorMessage);
   }
 
   private <R> R findResource(UUID id, Function<UUID, R> finder, String errorMessage) {
@@ -0,0 +1,206 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.buq;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
+import org.joda.money.CurrencyMismatchException;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openlmis.buq.domain.buq.BottomUpQuantification;
+import org.openlmis.buq.domain.buq.BottomUpQuantificationLineItem;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+import org.openlmis.buq.dto.productgroup.ProductGroupsCostData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulates the costs of bottom-up quantifications per product group into cells of a data
+ * source (a geographic zone or a facility) and a facility type. Every bottom-up quantification is
+ * added once to each cell it belongs to, so the costs of all cells are calculated in a single
+ * pass over the line items instead of filtering the bottom-up quantifications again for every
+ * cell.
+ *
+ * <p>The totals of a cell are kept in minor units of the currency, in an array indexed by the
+ * ordinal of the product group, and are only converted to {@link Money} when they are formatted,
+ * so adding a line item allocates nothing. The product groups of the orderables are resolved
+ * beforehand, see
+ * {@link org.openlmis.buq.service.productgroup.ProductGroupResolver}.
+ */
+final class ProductGroupCostRollup {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductGroupCostRollup.class);
+
+  private static final int NO_GROUP = -1;
+
+  private final String[] groupNames;
+  private final Map<String, Integer> ordinals = new LinkedHashMap<>();
+  private final int otherGroupOrdinal;
+  private final CurrencyUnit currency;
+  private final Map<UUID, ProductGroup> groupsByOrderable;
+  private final Map<Object, Cell> cells = new LinkedHashMap<>();
+
+  /**
+   * Creates a rollup of the costs of the given product groups. Groups with the same name share
+   * their totals.
+   *
+   * @param productGroups     product groups the costs are calculated for.
+   * @param currency          currency of the costs.
+   * @param groupsByOrderable product groups of the orderables of the line items by their ids;
+   *                          other orderables are counted in the group without code. Without
+   *                          such a group their costs are left out and a warning is logged.
+   */
+  ProductGroupCostRollup(List<ProductGroup> productGroups, CurrencyUnit currency,
+      Map<UUID, ProductGroup> groupsByOrderable) {
+    int other = NO_GROUP;
+
+    for (ProductGroup group : productGroups) {
+      Integer ordinal = ordinals.computeIfAbsent(group.getName(), name -> ordinals.size());
+
+      if (null == group.getCode()) {
+        other = ordinal;
+      }
+    }
+
+    this.groupNames = ordinals.keySet().toArray(new String[0]);
+    this.otherGroupOrdinal = other;
+    this.currency = currency;
+    this.groupsByOrderable = groupsByOrderable;
+  }
+
+  /**
+   * Adds the costs of the bottom-up quantification to the cell of the geographic zone and the
+   * facility type.
+   */
+  void addToZone(UUID zoneId, String facilityType, BottomUpQuantification buq) {
+    cells
+        .computeIfAbsent(Pair.of(zoneId, facilityType),
+            key -> new Cell(zoneId, facilityType, false))
+        .add(buq);
+  }
+
+  /**
+   * Adds the costs of the bottom-up quantification to its own cell, with its facility as the data
+   * source.
+   */
+  void addAsFacility(BottomUpQuantification buq) {
+    cells
+        .computeIfAbsent(buq.getId(), key -> new Cell(buq.getFacilityId(), null, true))
+        .add(buq);
+  }
+
+  /**
+   * Returns the formatted costs of each product group accumulated in the cells, in the order the
+   * cells were first added to.
+   */
+  List<ProductGroupsCostData> getCostData() {
+    return cells
+        .values()
+        .stream()
+        .map(Cell::toCostData)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the formatted costs of each product group accumulated for the given bottom-up
+   * quantifications.
+   */
+  Map<String, String> calculate(List<BottomUpQuantification> bottomUpQuantifications) {
+    Cell cell = new Cell(null, null, false);
+    bottomUpQuantifications.forEach(cell::add);
+
+    return cell.format();
+  }
+
+  private int groupOrdinal(UUID orderableId) {
+    ProductGroup group = groupsByOrderable.get(orderableId);
+    Integer ordinal = null == group ? null : ordinals.get(group.getName());
+
+    return null == ordinal ? otherGroupOrdinal : ordinal;
+  }
+
+  private final class Cell {
+    private final UUID dataSourceId;
+    private final String facilityType;
+    private final boolean dataSourceFacility;
+    private final List<UUID> bottomUpQuantificationIds = new ArrayList<>();
+    private final long[] totals = new long[groupNames.length];
+
+    Cell(UUID dataSourceId, String facilityType, boolean dataSourceFacility) {
+      this.dataSourceId = dataSourceId;
+      this.facilityType = facilityType;
+      this.dataSourceFacility = dataSourceFacility;
+    }
+
+    void add(BottomUpQuantification buq) {
+      bottomUpQuantificationIds.add(buq.getId());
+      int skipped = 0;
+
+      for (BottomUpQuantificationLineItem lineItem : buq.getBottomUpQuantificationLineItems()) {
+        // products of unknown groups are counted in the group without code, if there is one
+        int ordinal = groupOrdinal(lineItem.getOrderableId());
+
+        if (ordinal != NO_GROUP) {
+          totals[ordinal] = Math.addExact(totals[ordinal], toMinor(lineItem.getTotalCost()));
+        } else {
+          skipped++;
+        }
+      }
+
+      if (skipped > 0) {
+        LOGGER.warn("Costs of {} line items of bottom-up quantification {} are left out, as their "
+            + "products belong to no product group and there is no group without code",
+            skipped, buq.getId());
+      }
+    }
+
+    Map<String, String> format() {
+      Map<String, String> costs = new HashMap<>();
+
+      for (int ordinal = 0; ordinal < totals.length; ordinal++) {
+        costs.put(groupNames[ordinal],
+            Money.ofMinor(currency, totals[ordinal]).getAmount() + " " + currency.getCode());
+      }
+
+      return costs;
+    }
+
+    ProductGroupsCostData toCostData() {
+      ProductGroupsCostData costData = new ProductGroupsCostData();
+      costData.setDataSourceId(dataSourceId);
+      costData.setFacilityType(facilityType);
+      costData.setDataSourceFacility(dataSourceFacility);
+      costData.setCalculatedGroupsCosts(format());
+      costData.setBottomUpQuantificationIds(bottomUpQuantificationIds);
+      return costData;
+    }
+
+    private long toMinor(Money cost) {
+      if (!currency.equals(cost.getCurrencyUnit())) {
+        throw new CurrencyMismatchException(currency, cost.getCurrencyUnit());
+      }
+
+      return cost.getAmountMinorLong();
+    }
+  }
+
+}
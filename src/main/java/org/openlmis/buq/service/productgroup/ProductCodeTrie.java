@@ -0,0 +1,76 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.productgroup;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+
+/**
+ * Prefix tree of product group codes. A product belongs to the group with the longest code the
+ * product code starts with, so groups may have codes of any length and more specific groups may
+ * be nested in more general ones.
+ */
+final class ProductCodeTrie {
+
+  private final Node root = new Node();
+
+  /**
+   * Adds the group with its code to the tree. Groups without code are ignored.
+   */
+  void put(ProductGroup group) {
+    if (null == group.getCode()) {
+      return;
+    }
+
+    Node node = root;
+    for (int i = 0; i < group.getCode().length(); i++) {
+      node = node.children.computeIfAbsent(group.getCode().charAt(i), key -> new Node());
+    }
+    node.group = group;
+  }
+
+  /**
+   * Finds the group with the longest code that is a prefix of the product code.
+   *
+   * @param productCode code of the product, can be null.
+   * @return the group, or null if no group code is a prefix of the product code.
+   */
+  ProductGroup match(String productCode) {
+    if (null == productCode) {
+      return null;
+    }
+
+    Node node = root;
+    ProductGroup match = node.group;
+
+    for (int i = 0; i < productCode.length() && null != node; i++) {
+      node = node.children.get(productCode.charAt(i));
+
+      if (null != node && null != node.group) {
+        match = node.group;
+      }
+    }
+
+    return match;
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private ProductGroup group;
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.productgroup;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+import org.openlmis.buq.dto.referencedata.BasicOrderableDto;
+import org.openlmis.buq.repository.productgroup.ProductGroupRepository;
+import org.openlmis.buq.service.referencedata.OrderableReferenceDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Resolves the product groups of orderables. The product codes of orderables are cached for
+ * {@code referencedata.cache.orderableProductCodes.ttl} milliseconds and the codes of orderables
+ * missing from the cache are retrieved with one search, so calculating product group costs does
+ * not need to retrieve the orderables again. The product groups are read once and kept until they
+ * are changed, see {@link #invalidate()}, but not longer than {@code productGroups.cache.ttl}
+ * milliseconds, so that changes made through other instances are seen as well.
+ */
+@Service
+public class ProductGroupResolver {
+
+  private static final String CACHE_PROPERTY_PREFIX = "referencedata.cache.orderableProductCodes.";
+  private static final String GROUP_TTL_PROPERTY = "productGroups.cache.ttl";
+
+  @Autowired
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  @Autowired
+  private ProductGroupRepository productGroupRepository;
+
+  private LoadingCache<UUID, String> productCodes;
+
+  private volatile GroupIndex groupIndex;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private long groupTtl;
+
+  private Ticker ticker = Ticker.systemTicker();
+
+  /**
+   * Returns all product groups.
+   */
+  public List<ProductGroup> getProductGroups() {
+    return getGroupIndex().groups;
+  }
+
+  /**
+   * Finds the product groups of the given orderables. An orderable belongs to the group with the
+   * longest code its product code starts with.
+   *
+   * @param orderableIds ids of the orderables.
+   * @return the product groups by the ids of the orderables; orderables that are unknown or do not
+   *     belong to any group with a code are left out.
+   */
+  public Map<UUID, ProductGroup> resolve(Collection<UUID> orderableIds) {
+    if (orderableIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    Map<UUID, String> codes = null == productCodes
+        ? findProductCodes(orderableIds)
+        : productCodes.getAll(orderableIds);
+    ProductCodeTrie trie = getGroupIndex().trie;
+    Map<UUID, ProductGroup> groups = new HashMap<>();
+
+    codes.forEach((orderableId, productCode) -> {
+      ProductGroup group = trie.match(productCode);
+
+      if (null != group) {
+        groups.put(orderableId, group);
+      }
+    });
+
+    return groups;
+  }
+
+  /**
+   * Discards the product groups, so they are read again on the next use. When called in a
+   * transaction, they are discarded again after the transaction is committed, so that a
+   * concurrent request does not keep the groups from before the change. Groups read before the
+   * last call are never used again, even when their reading finishes after it.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager
+          .registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              generation.incrementAndGet();
+            }
+          });
+    }
+  }
+
+  /**
+   * Sets how long the product groups are kept, from the {@code productGroups.cache.ttl} property
+   * (in milliseconds). Without a positive value they are kept until they are invalidated.
+   */
+  @Autowired
+  public void setGroupTtl(Environment environment) {
+    groupTtl = TimeUnit.MILLISECONDS
+        .toNanos(environment.getProperty(GROUP_TTL_PROPERTY, Long.class, 0L));
+  }
+
+  /**
+   * Creates the cache of the product codes of orderables, unless the
+   * {@code referencedata.cache.orderableProductCodes.ttl} or {@code maxSize} property is not
+   * positive.
+   */
+  @Autowired
+  public void setProductCodeCache(Environment environment) {
+    long ttl = environment.getProperty(CACHE_PROPERTY_PREFIX + "ttl", Long.class, 0L);
+    long maxSize = environment
+        .getProperty(CACHE_PROPERTY_PREFIX + "maxSize", Long.class, Long.MAX_VALUE);
+
+    if (ttl <= 0 || maxSize <= 0) {
+      productCodes = null;
+      return;
+    }
+
+    productCodes = Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .maximumSize(maxSize)
+        .build(new CacheLoader<UUID, String>() {
+          @Override
+          public String load(UUID orderableId) {
+            return findProductCodes(Collections.singleton(orderableId)).get(orderableId);
+          }
+
+          @Override
+          public Map<UUID, String> loadAll(Iterable<? extends UUID> orderableIds) {
+            return findProductCodes(StreamSupport
+                .stream(orderableIds.spliterator(), false)
+                .collect(Collectors.toSet()));
+          }
+        });
+  }
+
+  private Map<UUID, String> findProductCodes(Collection<? extends UUID> orderableIds) {
+    return orderableReferenceDataService
+        .findByIds(new HashSet<>(orderableIds))
+        .stream()
+        .filter(orderable -> null != orderable.getProductCode())
+        .collect(Collectors.toMap(BasicOrderableDto::getId, BasicOrderableDto::getProductCode,
+            (first, duplicate) -> first));
+  }
+
+  private GroupIndex getGroupIndex() {
+    GroupIndex index = groupIndex;
+    long currentGeneration = generation.get();
+
+    if (null == index || index.generation != currentGeneration || isExpired(index)) {
+      index = new GroupIndex(productGroupRepository.findAll(), currentGeneration,
+          ticker.read());
+
+      // groups read while they were being changed are used once, but not published
+      if (generation.get() == currentGeneration) {
+        groupIndex = index;
+      }
+    }
+
+    return index;
+  }
+
+  private boolean isExpired(GroupIndex index) {
+    return groupTtl > 0 && ticker.read() - index.readAt >= groupTtl;
+  }
+
+  private static final class GroupIndex {
+    private final List<ProductGroup> groups;
+    private final ProductCodeTrie trie = new ProductCodeTrie();
+    private final long generation;
+    private final long readAt;
+
+    GroupIndex(Iterable<ProductGroup> productGroups, long generation, long readAt) {
+      groups = Collections.unmodifiableList(StreamSupport
+          .stream(productGroups.spliterator(), false)
+          .collect(Collectors.toList()));
+      groups.forEach(trie::put);
+      this.generation = generation;
+      this.readAt = readAt;
+    }
+  }
+
+}
@@ -15,14 +15,44 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.openlmis.buq.service.BaseCommunicationService;
+import org.openlmis.buq.util.ContextPropagatingTaskDecorator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 
 public abstract class BaseReferenceDataService<T> extends BaseCommunicationService<T> {
 
+  static final String CACHE_PROPERTY_PREFIX = "referencedata.cache.";
+
   @Value("${referencedata.url}")
   private String referenceDataUrl;
 
+  private LoadingCache<UUID, T> cache;
+
+  private Ticker ticker = Ticker.systemTicker();
+
+  private long cacheLifetime;
+
   @Override
   protected String getServiceName() {
     return "Reference Data";
@@ -33,4 +63,217 @@ public abstract class BaseReferenceDataService<T> extends BaseCommunicationServi
     return referenceDataUrl;
   }
 
+  /**
+   * Return one object from service. If the cache is enabled for the resource, the object is
+   * taken from the cache and only fetched when it is missing. An object older than the TTL is
+   * still returned while it is fetched again in the background, and it is kept when that fails,
+   * until it becomes older than the TTL plus the allowed staleness. Missing objects are not
+   * cached.
+   *
+   * @param id UUID of requesting object.
+   * @return Requesting reference data object.
+   */
+  @Override
+  public T findOne(UUID id) {
+    if (null == cache) {
+      return super.findOne(id);
+    }
+
+    return cache.get(id);
+  }
+
+  private T load(UUID id) {
+    return super.findOne(id);
+  }
+
+  /**
+   * Runs the cache refresh task on the reference data executor, or in the calling thread if
+   * there is none. The task runs without the request attributes of the request that triggered
+   * it, as it usually finishes after that request has completed.
+   */
+  protected void refresh(Runnable task) {
+    if (null == executor) {
+      task.run();
+    } else {
+      executor.execute(ContextPropagatingTaskDecorator.withoutRequest(task));
+    }
+  }
+
+  /**
+   * Returns the name used to configure the cache of the resource, by default the last part of
+   * the resource url, for example {@code facilities} for {@code /api/facilities/}.
+   */
+  protected String getCacheName() {
+    return getResourceName();
+  }
+
+  /**
+   * Creates the cache of the resource. The cache is enabled only when both
+   * {@code referencedata.cache.<name>.ttl} (in milliseconds) and
+   * {@code referencedata.cache.<name>.maxSize} are set to positive values. Objects are kept for
+   * {@code referencedata.cache.<name>.maxStale} (or {@code referencedata.cache.maxStale})
+   * milliseconds after the TTL, so they can be served while the service is unavailable. Its hit,
+   * miss and eviction statistics are registered in the given registry.
+   */
+  @Autowired
+  public void setCache(Environment environment, MeterRegistry meterRegistry) {
+    String name = getCacheName();
+    long ttl = environment.getProperty(CACHE_PROPERTY_PREFIX + name + ".ttl", Long.class, 0L);
+    long maxSize = environment
+        .getProperty(CACHE_PROPERTY_PREFIX + name + ".maxSize", Long.class, 0L);
+
+    long maxStale = getMaxStale(environment, name);
+
+    if (ttl <= 0 || maxSize <= 0) {
+      return;
+    }
+
+    cacheLifetime = TimeUnit.MILLISECONDS.toNanos(ttl + maxStale);
+
+    Caffeine<Object, Object> builder = Caffeine
+        .newBuilder()
+        .expireAfter(new WriteExpiry(cacheLifetime))
+        .maximumSize(maxSize)
+        .executor(this::refresh)
+        .ticker(ticker)
+        .recordStats();
+
+    if (maxStale > 0) {
+      builder.refreshAfterWrite(ttl, TimeUnit.MILLISECONDS);
+    }
+
+    cache = builder.build(this::load);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_PROPERTY_PREFIX + name,
+        Tags.of("service", getServiceName()));
+  }
+
+  /**
+   * Returns how many milliseconds after its TTL the cache with the given name may serve objects
+   * it could not refresh: {@code referencedata.cache.<name>.maxStale}, or
+   * {@code referencedata.cache.maxStale} when that is not set.
+   */
+  static long getMaxStale(Environment environment, String name) {
+    long maxStale = environment.getProperty(CACHE_PROPERTY_PREFIX + name + ".maxStale",
+        Long.class, environment.getProperty(CACHE_PROPERTY_PREFIX + "maxStale", Long.class, 0L));
+
+    return Math.max(maxStale, 0);
+  }
+
+  /**
+   * Checks whether the resource is loaded into its cache at startup (see {@link #warmUp()}).
+   * Resources with a cache and an id extractor (see {@link #getIdExtractor()}) are; by default
+   * none is.
+   */
+  public boolean isWarmable() {
+    return null != cache && null != getIdExtractor();
+  }
+
+  /**
+   * Fetches all objects of the resource and puts them into the cache.
+   *
+   * @return the number of fetched objects.
+   */
+  public int warmUp() {
+    List<T> objects = findAll();
+    putAll(objects);
+
+    return objects.size();
+  }
+
+  /**
+   * Returns a copy of the objects in the cache of the resource.
+   */
+  public List<T> getCachedObjects() {
+    return null == cache
+        ? Collections.emptyList()
+        : new ArrayList<>(cache.asMap().values());
+  }
+
+  /**
+   * Puts objects read from a snapshot (see {@link #getCachedObjects()}) into the cache. The
+   * objects are treated as fetched when the snapshot was written, so they expire that much
+   * earlier than freshly fetched objects; a snapshot older than the TTL and the allowed
+   * staleness restores nothing.
+   *
+   * @param objectMapper mapper used to read the objects.
+   * @param objects      JSON array of objects.
+   * @param age          age of the snapshot in milliseconds.
+   * @return the number of restored objects.
+   */
+  public int restore(ObjectMapper objectMapper, JsonNode objects, long age) {
+    List<T> restored = Arrays.asList(objectMapper.convertValue(objects, getArrayResultClass()));
+    putAll(restored, Math.max(age, 0));
+
+    return restored.size();
+  }
+
+  /**
+   * Puts the objects into the cache by their ids.
+   */
+  protected void putAll(Collection<T> objects) {
+    putAll(objects, 0);
+  }
+
+  /**
+   * Puts the objects into the cache by their ids, as if they had been fetched the given number
+   * of milliseconds ago.
+   */
+  protected void putAll(Collection<T> objects, long age) {
+    Function<T, UUID> idExtractor = getIdExtractor();
+
+    if (null == cache || null == idExtractor) {
+      return;
+    }
+
+    Map<UUID, T> byId = new HashMap<>();
+
+    for (T object : objects) {
+      UUID id = null == object ? null : idExtractor.apply(object);
+
+      if (null != id) {
+        byId.put(id, object);
+      }
+    }
+
+    long lifetime = cacheLifetime - TimeUnit.MILLISECONDS.toNanos(age);
+
+    if (age <= 0) {
+      cache.putAll(byId);
+    } else if (lifetime > 0) {
+      cache.policy().expireVariably().ifPresent(policy -> byId
+          .forEach((id, object) -> policy.put(id, object, lifetime, TimeUnit.NANOSECONDS)));
+    }
+  }
+
+  /**
+   * Expires an object the given number of nanoseconds after it was put into the cache or
+   * refreshed, like {@link Caffeine#expireAfterWrite}, while letting restored objects be put with
+   * a shorter lifetime.
+   */
+  private static final class WriteExpiry implements Expiry<Object, Object> {
+    private final long lifetime;
+
+    WriteExpiry(long lifetime) {
+      this.lifetime = lifetime;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+      return lifetime;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime,
+        long currentDuration) {
+      return lifetime;
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+
 }
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import org.openlmis.buq.dto.referencedata.FacilityDto;
 import org.openlmis.buq.dto.referencedata.MinimalFacilityDto;
 import org.openlmis.buq.service.RequestParameters;
@@ -45,6 +46,11 @@ public class FacilityReferenceDataService extends BaseReferenceDataService<Facil
     return FacilityDto[].class;
   }
 
+  @Override
+  protected Function<FacilityDto, UUID> getIdExtractor() {
+    return FacilityDto::getId;
+  }
+
   @Override
   public List<FacilityDto> findAll() {
     return getPage(RequestParameters.init()).getContent();
@@ -57,7 +63,7 @@ public class FacilityReferenceDataService extends BaseReferenceDataService<Facil
    * @return List of FacilityDtos with similar ids.
    */
   public List<FacilityDto> search(Set<UUID> facilityIds) {
-    return getPage(RequestParameters.init().set("id", facilityIds)).getContent();
+    return getPageByIds(facilityIds, RequestParameters.init()).getContent();
   }
 
   /**
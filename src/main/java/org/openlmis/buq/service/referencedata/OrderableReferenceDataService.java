@@ -15,7 +15,12 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.openlmis.buq.dto.referencedata.BasicOrderableDto;
 import org.openlmis.buq.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -39,6 +44,11 @@ public class OrderableReferenceDataService
     return BasicOrderableDto[].class;
   }
 
+  @Override
+  protected Function<BasicOrderableDto, UUID> getIdExtractor() {
+    return BasicOrderableDto::getId;
+  }
+
   @Override
   public List<BasicOrderableDto> findAll() {
     return getPage(RequestParameters.init()).getContent();
@@ -48,6 +58,31 @@ public class OrderableReferenceDataService
     return getPage(parameters).getContent();
   }
 
+  /**
+   * Retrieves the latest versions of orderables with the given ids. Large id sets are sent in
+   * the body of a single search request.
+   *
+   * @param ids ids of orderables.
+   * @return List of orderables with the given ids.
+   */
+  public List<BasicOrderableDto> findByIds(Collection<UUID> ids) {
+    return getPageByIds(ids, RequestParameters.init()).getContent();
+  }
+
+  @Override
+  protected String getBulkSearchResourceUrl() {
+    return "search";
+  }
+
+  @Override
+  protected Object createBulkSearchBody(Collection<UUID> ids) {
+    List<Object> identities = ids
+        .stream()
+        .map(id -> Collections.singletonMap("id", id))
+        .collect(Collectors.toList());
+
+    return Collections.singletonMap("identities", identities);
+  }
 
   /**
    * Returns the number of packs of product based on a given data.
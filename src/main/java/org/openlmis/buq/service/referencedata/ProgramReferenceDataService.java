@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import org.openlmis.buq.dto.referencedata.ProgramDto;
 import org.openlmis.buq.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -41,6 +42,11 @@ public class ProgramReferenceDataService extends BaseReferenceDataService<Progra
     return ProgramDto[].class;
   }
 
+  @Override
+  protected Function<ProgramDto, UUID> getIdExtractor() {
+    return ProgramDto::getId;
+  }
+
   /**
    * This method retrieves Programs with programName similar with name parameter.
    *
@@ -15,13 +15,29 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
 import org.openlmis.buq.dto.referencedata.RequisitionGroupDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 @Service
 public class RequisitionGroupReferenceDataService
     extends BaseReferenceDataService<RequisitionGroupDto> {
 
+  private static final String INDEX_KEY = "supervisoryNodesByFacility";
+
+  private LoadingCache<String, Map<UUID, Set<UUID>>> supervisoryNodesByFacility;
+
   @Override
   protected String getUrl() {
     return "/api/requisitionGroups/";
@@ -37,4 +53,69 @@ public class RequisitionGroupReferenceDataService
     return RequisitionGroupDto[].class;
   }
 
+  /**
+   * Returns the ids of the supervisory nodes of the requisition groups the facility is a member
+   * of.
+   *
+   * @param facilityId UUID of the facility.
+   * @return the ids of the supervisory nodes, or an empty set.
+   */
+  public Set<UUID> getSupervisoryNodeIds(UUID facilityId) {
+    Map<UUID, Set<UUID>> index = null == supervisoryNodesByFacility
+        ? indexSupervisoryNodes()
+        : supervisoryNodesByFacility.get(INDEX_KEY);
+
+    return index.getOrDefault(facilityId, Collections.emptySet());
+  }
+
+  /**
+   * Creates the cache of the index from facilities to the supervisory nodes of their requisition
+   * groups. The index is built from all requisition groups and rebuilt in the background when it
+   * is older than {@code referencedata.cache.supervisoryNodesByFacility.ttl} milliseconds; the
+   * previous index is used until the new one is ready, but not longer than
+   * {@code referencedata.cache.supervisoryNodesByFacility.maxStale} (or
+   * {@code referencedata.cache.maxStale}) milliseconds after the TTL. Without the TTL the index
+   * is built on every call.
+   */
+  @Autowired
+  public void setSupervisoryNodeIndex(Environment environment) {
+    long ttl = environment
+        .getProperty(CACHE_PROPERTY_PREFIX + INDEX_KEY + ".ttl", Long.class, 0L);
+
+    if (ttl <= 0) {
+      return;
+    }
+
+    long maxStale = getMaxStale(environment, INDEX_KEY);
+
+    Caffeine<Object, Object> builder = Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl + maxStale, TimeUnit.MILLISECONDS)
+        .executor(this::refresh);
+
+    if (maxStale > 0) {
+      builder.refreshAfterWrite(ttl, TimeUnit.MILLISECONDS);
+    }
+
+    supervisoryNodesByFacility = builder.build(key -> indexSupervisoryNodes());
+  }
+
+  private Map<UUID, Set<UUID>> indexSupervisoryNodes() {
+    Map<UUID, Set<UUID>> index = new HashMap<>();
+
+    for (RequisitionGroupDto group : findAll()) {
+      if (null == group.getSupervisoryNode() || null == group.getMemberFacilities()) {
+        continue;
+      }
+
+      UUID supervisoryNodeId = group.getSupervisoryNode().getId();
+
+      for (FacilityDto facility : group.getMemberFacilities()) {
+        index.computeIfAbsent(facility.getId(), id -> new HashSet<>()).add(supervisoryNodeId);
+      }
+    }
+
+    return index;
+  }
+
 }
@@ -15,14 +15,43 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import org.openlmis.buq.dto.referencedata.RightDto;
 import org.openlmis.buq.service.RequestParameters;
+import org.openlmis.buq.util.ContextPropagatingTaskDecorator;
+import org.openlmis.buq.util.RequestMemo;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Reference data service of rights. Rights are configuration that rarely changes, so all of them
+ * are kept in a catalog by name, which is reloaded when it is older than
+ * {@code referencedata.cache.rights.ttl} milliseconds (in the background, if the catalog has
+ * been loaded before). A right that is not in the catalog is searched for by name and added to
+ * it. The catalog is disabled when the TTL is 0.
+ */
 @Service
 public class RightReferenceDataService extends BaseReferenceDataService<RightDto> {
 
+  @Value("${referencedata.cache.rights.ttl}")
+  private long catalogTtl;
+
+  private Clock clock = Clock.systemUTC();
+
+  private volatile Map<String, RightDto> catalog = new ConcurrentHashMap<>();
+
+  private volatile long catalogLoadedAt;
+
+  private final AtomicBoolean catalogRefreshing = new AtomicBoolean();
+
   @Override
   protected String getUrl() {
     return "/api/rights/";
@@ -38,15 +67,99 @@ public class RightReferenceDataService extends BaseReferenceDataService<RightDto
     return RightDto[].class;
   }
 
+  @Override
+  protected Function<RightDto, UUID> getIdExtractor() {
+    return RightDto::getId;
+  }
+
   /**
-   * Find a correct right by the provided name.
+   * Find a correct right by the provided name. The right is taken from the catalog; a right
+   * missing from it is searched for once per request.
    *
    * @param name right name
    * @return right related with the name or {@code null}.
    */
   public RightDto findRight(String name) {
+    RightDto right = getCatalog().get(name);
+    return null == right ? RequestMemo.get("right", name, this::searchRight) : right;
+  }
+
+  /**
+   * Puts the rights into the cache by their ids and replaces the catalog with them. The catalog
+   * is reloaded when the rights are older than the TTL.
+   */
+  @Override
+  protected void putAll(Collection<RightDto> rights, long age) {
+    super.putAll(rights, age);
+
+    Map<String, RightDto> byName = new ConcurrentHashMap<>();
+
+    for (RightDto right : rights) {
+      if (null != right && null != right.getName()) {
+        byName.put(right.getName(), right);
+      }
+    }
+
+    catalog = byName;
+    catalogLoadedAt = clock.millis() - age;
+  }
+
+  private Map<String, RightDto> getCatalog() {
+    if (catalogTtl <= 0) {
+      return Collections.emptyMap();
+    }
+
+    if (isCatalogFresh()) {
+      return catalog;
+    }
+
+    if (catalog.isEmpty() || null == executor) {
+      refreshCatalog();
+    } else if (catalogRefreshing.compareAndSet(false, true)) {
+      executor.execute(ContextPropagatingTaskDecorator.withoutRequest(() -> {
+        try {
+          refreshCatalog();
+        } finally {
+          catalogRefreshing.set(false);
+        }
+      }));
+    }
+
+    return catalog;
+  }
+
+  private boolean isCatalogFresh() {
+    return catalogLoadedAt > 0 && clock.millis() - catalogLoadedAt < catalogTtl;
+  }
+
+  private synchronized void refreshCatalog() {
+    if (isCatalogFresh()) {
+      return;
+    }
+
+    try {
+      warmUp();
+    } catch (RuntimeException ex) {
+      logger.warn("Could not load the rights catalog, rights will be searched for by name", ex);
+      // try again after the TTL rather than on every lookup
+      catalogLoadedAt = clock.millis();
+    }
+  }
+
+  private RightDto searchRight(String name) {
     List<RightDto> rights = findAll("search", RequestParameters.init().set("name", name));
-    return rights.isEmpty() ? null : rights.get(0);
+
+    if (rights.isEmpty()) {
+      return null;
+    }
+
+    RightDto right = rights.get(0);
+
+    if (catalogTtl > 0) {
+      catalog.put(name, right);
+    }
+
+    return right;
   }
 
 }
@@ -0,0 +1,251 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.referencedata;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.buq.ExecutorConfiguration;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+import org.openlmis.buq.dto.referencedata.ObjectReferenceDto;
+import org.openlmis.buq.dto.referencedata.RequisitionGroupDto;
+import org.openlmis.buq.dto.referencedata.RequisitionGroupProgramScheduleDto;
+import org.openlmis.buq.dto.referencedata.SupervisoryNodeDto;
+import org.openlmis.buq.dto.referencedata.SupplyLineDto;
+import org.openlmis.buq.service.RequestParameters;
+import org.openlmis.buq.util.ContextPropagatingTaskDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local copy of the supervisory node hierarchy used to route approvals. It holds the nodes with
+ * their parent links, the supply lines of each program and node, and the supervisory node each
+ * facility reports to for a program, so that approving a bottom-up quantification does not need
+ * to call the reference data service.
+ *
+ * <p>The graph is loaded on first use and rebuilt in the background when it is older than
+ * {@code referencedata.cache.supervisoryNodeGraph.ttl} milliseconds; the previous graph answers
+ * the lookups until the new one is ready. Nodes missing from the graph are fetched and added to
+ * it, and supply lines or facilities missing from it are looked up in the reference data
+ * service, so supervisory nodes and supply lines added since the graph was loaded are still
+ * routed to. Without the TTL every lookup goes to the reference data service.
+ *
+ * <p>Routing must not follow an old hierarchy for long, so a graph that cannot be rebuilt is
+ * dropped after {@code referencedata.cache.supervisoryNodeGraph.maxStale} milliseconds, which
+ * is configured separately from (and shorter than) the staleness allowed for other reference
+ * data.
+ */
+@Component
+public class SupervisoryNodeGraph {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SupervisoryNodeGraph.class);
+
+  private static final String GRAPH_KEY = "supervisoryNodeGraph";
+
+  @Autowired
+  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+
+  @Autowired
+  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+
+  @Autowired
+  private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
+
+  private LoadingCache<String, Snapshot> graph;
+
+  /**
+   * Returns the supervisory node with the given id.
+   *
+   * @param supervisoryNodeId UUID of the supervisory node, can be null.
+   * @return the supervisory node, or null if the id is null or there is no such node.
+   */
+  public SupervisoryNodeDto getNode(UUID supervisoryNodeId) {
+    if (null == supervisoryNodeId) {
+      return null;
+    }
+
+    if (null == graph) {
+      return supervisoryNodeReferenceDataService.findOne(supervisoryNodeId);
+    }
+
+    Map<UUID, SupervisoryNodeDto> nodes = graph.get(GRAPH_KEY).nodes;
+    SupervisoryNodeDto node = nodes.get(supervisoryNodeId);
+
+    if (null == node) {
+      node = supervisoryNodeReferenceDataService.findOne(supervisoryNodeId);
+      Optional.ofNullable(node).ifPresent(found -> nodes.put(found.getId(), found));
+    }
+
+    return node;
+  }
+
+  /**
+   * Returns the supply lines of the program at the supervisory node.
+   *
+   * @param programId         UUID of the program.
+   * @param supervisoryNodeId UUID of the supervisory node.
+   * @return the supply lines, or an empty list.
+   */
+  public List<SupplyLineDto> getSupplyLines(UUID programId, UUID supervisoryNodeId) {
+    Snapshot snapshot = null == graph ? null : graph.get(GRAPH_KEY);
+    List<SupplyLineDto> supplyLines = null == snapshot || !snapshot.supplyLinesComplete
+        ? null
+        : snapshot.supplyLines.get(Pair.of(programId, supervisoryNodeId));
+
+    // a supply line added after the graph was loaded must not be taken for a missing one
+    return null == supplyLines
+        ? supplyLineReferenceDataService.search(programId, supervisoryNodeId)
+        : supplyLines;
+  }
+
+  /**
+   * Finds the supervisory node the facility reports to for the program. A facility the graph
+   * does not know, or that belongs to more than one requisition group with the program, is
+   * looked up in the reference data service.
+   *
+   * @param programId  UUID of the program.
+   * @param facilityId UUID of the facility.
+   * @return the supervisory node, or null if there is none.
+   */
+  public SupervisoryNodeDto findSupervisoryNode(UUID programId, UUID facilityId) {
+    UUID supervisoryNodeId = null == graph
+        ? null
+        : graph.get(GRAPH_KEY).supervisoryNodes.get(Pair.of(programId, facilityId));
+
+    return null == supervisoryNodeId
+        ? supervisoryNodeReferenceDataService.findSupervisoryNode(programId, facilityId)
+        : getNode(supervisoryNodeId);
+  }
+
+  /**
+   * Creates the cache that holds the graph, unless the
+   * {@code referencedata.cache.supervisoryNodeGraph.ttl} property is missing or not positive. The
+   * graph is rebuilt in the background after the TTL and dropped when it could not be rebuilt
+   * for {@code referencedata.cache.supervisoryNodeGraph.maxStale} (or
+   * {@code referencedata.cache.maxStale}) milliseconds after that.
+   */
+  @Autowired
+  public void setGraphCache(Environment environment,
+      @Qualifier(ExecutorConfiguration.REFERENCE_DATA_EXECUTOR) Executor executor) {
+    long ttl = environment.getProperty(
+        BaseReferenceDataService.CACHE_PROPERTY_PREFIX + GRAPH_KEY + ".ttl", Long.class, 0L);
+
+    if (ttl <= 0) {
+      graph = null;
+      return;
+    }
+
+    long maxStale = BaseReferenceDataService.getMaxStale(environment, GRAPH_KEY);
+
+    Caffeine<Object, Object> builder = Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl + maxStale, TimeUnit.MILLISECONDS)
+        .executor(task -> executor.execute(ContextPropagatingTaskDecorator.withoutRequest(task)));
+
+    if (maxStale > 0) {
+      builder.refreshAfterWrite(ttl, TimeUnit.MILLISECONDS);
+    }
+
+    graph = builder.build(key -> load());
+  }
+
+  private Snapshot load() {
+    Snapshot snapshot = new Snapshot();
+
+    for (SupervisoryNodeDto node : supervisoryNodeReferenceDataService
+        .getPage(RequestParameters.init()).getContent()) {
+      snapshot.nodes.put(node.getId(), node);
+    }
+
+    Page<SupplyLineDto> supplyLines = supplyLineReferenceDataService
+        .getPage(RequestParameters.init());
+
+    for (SupplyLineDto supplyLine : supplyLines.getContent()) {
+      if (null != supplyLine.getProgram() && null != supplyLine.getSupervisoryNode()) {
+        snapshot.supplyLines
+            .computeIfAbsent(Pair.of(supplyLine.getProgram().getId(),
+                supplyLine.getSupervisoryNode().getId()), key -> new ArrayList<>())
+            .add(supplyLine);
+      }
+    }
+    snapshot.supplyLinesComplete =
+        supplyLines.getContent().size() >= supplyLines.getTotalElements();
+
+    for (RequisitionGroupDto group : requisitionGroupReferenceDataService.findAll()) {
+      indexRequisitionGroup(snapshot, group);
+    }
+
+    if (!snapshot.ambiguousFacilities.isEmpty()) {
+      LOGGER.warn("{} facilities report to more than one supervisory node for a program, "
+          + "they are routed by the reference data service", snapshot.ambiguousFacilities.size());
+      snapshot.ambiguousFacilities.forEach(snapshot.supervisoryNodes::remove);
+    }
+
+    LOGGER.debug("Loaded {} supervisory nodes and {} supply lines",
+        snapshot.nodes.size(), supplyLines.getContent().size());
+
+    return snapshot;
+  }
+
+  private void indexRequisitionGroup(Snapshot snapshot, RequisitionGroupDto group) {
+    if (null == group.getSupervisoryNode() || null == group.getMemberFacilities()
+        || null == group.getRequisitionGroupProgramSchedules()) {
+      return;
+    }
+
+    for (RequisitionGroupProgramScheduleDto schedule
+        : group.getRequisitionGroupProgramSchedules()) {
+      UUID programId = Optional
+          .ofNullable(schedule.getProgram())
+          .map(ObjectReferenceDto::getId)
+          .orElse(null);
+
+      for (FacilityDto facility : group.getMemberFacilities()) {
+        Pair<UUID, UUID> key = Pair.of(programId, facility.getId());
+        UUID previous = snapshot.supervisoryNodes.put(key, group.getSupervisoryNode().getId());
+
+        if (null != previous && !previous.equals(group.getSupervisoryNode().getId())) {
+          snapshot.ambiguousFacilities.add(key);
+        }
+      }
+    }
+  }
+
+  private static final class Snapshot {
+    private final Map<UUID, SupervisoryNodeDto> nodes = new ConcurrentHashMap<>();
+    private final Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLines = new HashMap<>();
+    private final Map<Pair<UUID, UUID>, UUID> supervisoryNodes = new HashMap<>();
+    private final Set<Pair<UUID, UUID>> ambiguousFacilities = new HashSet<>();
+    private boolean supplyLinesComplete;
+  }
+
+}
@@ -17,23 +17,35 @@ package org.openlmis.buq.service.referencedata;
 
 import static java.util.stream.Collectors.toList;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import org.openlmis.buq.dto.referencedata.DetailedRoleAssignmentDto;
 import org.openlmis.buq.dto.referencedata.RightDto;
 import org.openlmis.buq.dto.referencedata.UserDto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 @Service
 public class UserRoleAssignmentsReferenceDataService extends
     BaseReferenceDataService<DetailedRoleAssignmentDto> {
 
+  private static final String ROLE_ASSIGNMENTS_CACHE = "roleAssignments";
+
   @Autowired
   private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
 
+  private LoadingCache<UUID, List<DetailedRoleAssignmentDto>> roleAssignments;
+
   @Override
   protected String getUrl() {
     return "/api/users/";
@@ -49,8 +61,46 @@ public class UserRoleAssignmentsReferenceDataService extends
     return DetailedRoleAssignmentDto[].class;
   }
 
+  /**
+   * Returns the role assignments of the user. They are kept for
+   * {@code referencedata.cache.roleAssignments.ttl} milliseconds, and then revalidated with the
+   * ETag of the previous response.
+   */
   public Collection<DetailedRoleAssignmentDto> getRoleAssignments(UUID userId) {
-    return findAll(userId + "/roleAssignments");
+    return null == roleAssignments
+        ? fetchRoleAssignments(userId)
+        : roleAssignments.get(userId);
+  }
+
+  /**
+   * Creates the cache of role assignments by user. The cache is enabled only when both
+   * {@code referencedata.cache.roleAssignments.ttl} (in milliseconds) and
+   * {@code referencedata.cache.roleAssignments.maxSize} are set to positive values. Its hit,
+   * miss and eviction statistics are registered in the given registry.
+   */
+  @Autowired
+  public void setRoleAssignmentsCache(Environment environment, MeterRegistry meterRegistry) {
+    String prefix = CACHE_PROPERTY_PREFIX + ROLE_ASSIGNMENTS_CACHE;
+    long ttl = environment.getProperty(prefix + ".ttl", Long.class, 0L);
+    long maxSize = environment.getProperty(prefix + ".maxSize", Long.class, 0L);
+
+    if (ttl <= 0 || maxSize <= 0) {
+      return;
+    }
+
+    roleAssignments = Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .maximumSize(maxSize)
+        .recordStats()
+        .build(this::fetchRoleAssignments);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, roleAssignments, prefix,
+        Tags.of("service", getServiceName()));
+  }
+
+  private List<DetailedRoleAssignmentDto> fetchRoleAssignments(UUID userId) {
+    return Collections.unmodifiableList(findAll(userId + "/roleAssignments"));
   }
 
   /**
@@ -68,12 +118,8 @@ public class UserRoleAssignmentsReferenceDataService extends
       return false;
     }
 
-    List<UUID> facilitySupervisoryNodesIds = requisitionGroupReferenceDataService
-        .findAll()
-        .stream()
-        .filter(r -> r.hasFacility(facilityId))
-        .map(r -> r.getSupervisoryNode().getId())
-        .collect(Collectors.toList());
+    Set<UUID> facilitySupervisoryNodesIds = requisitionGroupReferenceDataService
+        .getSupervisoryNodeIds(facilityId);
 
     return getRoleAssignments(userId).stream()
         .filter(r -> r.getRole().getRights().contains(right))
@@ -83,7 +129,7 @@ public class UserRoleAssignmentsReferenceDataService extends
 
   private boolean hasAnySupervisionRoleWithGivenParameters(DetailedRoleAssignmentDto role,
                                                            UUID programId,
-                                                           List<UUID> facilitySupervisoryNodesIds,
+                                                           Set<UUID> facilitySupervisoryNodesIds,
                                                            UUID supervisoryNodeId) {
     return roleHasSupervisoryNodeIdAndProgramId(role)
         && roleHasProgramId(role, programId)
@@ -100,7 +146,7 @@ public class UserRoleAssignmentsReferenceDataService extends
   }
 
   private boolean roleHasSupervisoryNodeId(DetailedRoleAssignmentDto role, UUID supervisoryNodeId,
-                                           List<UUID> facilitySupervisoryNodesIds) {
+                                           Set<UUID> facilitySupervisoryNodesIds) {
     return supervisoryNodeId == null
         || facilitySupervisoryNodesIds.contains(role.getSupervisoryNodeId());
   }
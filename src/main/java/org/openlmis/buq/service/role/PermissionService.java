@@ -21,19 +21,18 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.openlmis.buq.dto.ResultDto;
-import org.openlmis.buq.dto.referencedata.RightDto;
 import org.openlmis.buq.dto.referencedata.UserDto;
 import org.openlmis.buq.exception.PermissionMessageException;
 import org.openlmis.buq.i18n.MessageKeys;
-import org.openlmis.buq.service.referencedata.UserReferenceDataService;
+import org.openlmis.buq.service.DataRetrievalException;
 import org.openlmis.buq.util.AuthenticationHelper;
 import org.openlmis.buq.util.Message;
+import org.openlmis.buq.util.RequestMemo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
 
 @Service
 public class PermissionService {
@@ -59,11 +58,13 @@ public class PermissionService {
   public static final List<String> APPROVE_RIGHTS = Arrays.asList(
           MOH_APPROVAL, PORALG_APPROVAL, APPROVE_BUQ);
 
+  private static final String PERMISSIONS_MEMO = "permissions";
+
   @Autowired
   private AuthenticationHelper authenticationHelper;
 
   @Autowired
-  private UserReferenceDataService userReferenceDataService;
+  private PermissionStrings permissionStrings;
 
   @Value("${auth.server.clientId}")
   private String serviceTokenClientId;
@@ -83,6 +84,18 @@ public class PermissionService {
     }
   }
 
+  /**
+   * Checks if the current user has the right for any program and facility. The permissions of
+   * the user are evaluated locally, so checking several rights in a request retrieves them once.
+   *
+   * @param rightName name of the right.
+   * @return true if the user has the right.
+   */
+  public boolean hasRight(String rightName) {
+    ResultDto<Boolean> result = getRightResult(rightName, null, null, false);
+    return null != result && Boolean.TRUE.equals(result.getResult());
+  }
+
   public void hasAtLeastOnePermission(List<String> rightNames) {
     hasAtLeastOnePermission(rightNames, null, null);
   }
@@ -124,17 +137,28 @@ public class PermissionService {
             : checkUserToken(rightName, program, facility);
   }
 
+  /**
+   * Checks the right against the permission strings of the current user. The permission strings
+   * are revalidated with the reference data service once per request, and the checks are then
+   * answered from their index (see {@link UserPermissions}).
+   */
   private ResultDto<Boolean> checkUserToken(String rightName, UUID program, UUID facility) {
     UserDto user = authenticationHelper.getCurrentUser();
-    RightDto right = authenticationHelper.getRight(rightName);
+    UserPermissions permissions;
 
     try {
-      return userReferenceDataService.hasRight(
-              user.getId(), right.getId(), program, facility);
-    } catch (HttpClientErrorException httpException) {
+      permissions = RequestMemo.get(PERMISSIONS_MEMO, user.getId(),
+          userId -> permissionStrings.forUser(userId).getPermissions());
+    } catch (DataRetrievalException ex) {
+      if (null == ex.getStatus() || !ex.getStatus().is4xxClientError()) {
+        throw ex;
+      }
+
       throw new PermissionMessageException(new Message(MessageKeys.ERROR_PERMISSION_CHECK_FAILED,
-              httpException.getMessage()), httpException);
+              ex.getResponse()), ex);
     }
+
+    return new ResultDto<>(permissions.hasRight(rightName, program, facility));
   }
 
   private ResultDto<Boolean> checkServiceToken(boolean allowApiKey,
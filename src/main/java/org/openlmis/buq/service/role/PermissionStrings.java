@@ -45,6 +45,7 @@ public class PermissionStrings {
   public class Handler implements Supplier<Set<PermissionStringDto>> {
     private UUID userId;
     private Set<PermissionStringDto> permissionStrings;
+    private UserPermissions permissions;
     private String etag;
 
     Handler(UUID userId) {
@@ -53,16 +54,29 @@ public class PermissionStrings {
 
     @Override
     public synchronized Set<PermissionStringDto> get() {
+      refresh();
+      return permissionStrings;
+    }
+
+    /**
+     * Returns the permissions of the user indexed for lookups. The permission strings are
+     * revalidated with the stored ETag and indexed again only if they have changed.
+     */
+    public synchronized UserPermissions getPermissions() {
+      refresh();
+      return permissions;
+    }
+
+    private void refresh() {
       ServiceResponse<List<String>> response = userReferenceDataService
               .getPermissionStrings(userId, etag);
-      LOGGER.info("permissionStrings response:" + response);
+      LOGGER.debug("permissionStrings response: {}", response);
 
       if (response.isModified()) {
         permissionStrings = PermissionStringDto.from(response.getBody());
+        permissions = UserPermissions.from(permissionStrings);
         etag = response.getETag();
       }
-
-      return permissionStrings;
     }
   }
 }
@@ -0,0 +1,104 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.role;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.openlmis.buq.dto.role.PermissionStringDto;
+
+/**
+ * Permissions of a user, indexed by right name and then by program, so a right can be checked
+ * with a few map lookups. Built once from the permission strings of the user
+ * ({@code RIGHT}, {@code RIGHT|facility} or {@code RIGHT|facility|program}).
+ */
+public final class UserPermissions {
+
+  private final Map<String, Scope> rights;
+
+  private UserPermissions(Map<String, Scope> rights) {
+    this.rights = rights;
+  }
+
+  /**
+   * Indexes the given permission strings.
+   */
+  public static UserPermissions from(Collection<PermissionStringDto> permissionStrings) {
+    Map<String, Scope> rights = new HashMap<>();
+
+    for (PermissionStringDto permission : permissionStrings) {
+      rights
+          .computeIfAbsent(permission.getRightName(), name -> new Scope())
+          .add(permission.getFacilityId(), permission.getProgramId());
+    }
+
+    return new UserPermissions(rights);
+  }
+
+  /**
+   * Checks if the user has the right. A {@code null} program or facility matches any program or
+   * facility the user has the right for. A right that is not limited to a facility (a general
+   * admin right) matches any program and facility.
+   *
+   * @param rightName name of the right.
+   * @param program   program to check, can be {@code null}.
+   * @param facility  facility to check, can be {@code null}.
+   * @return true if the user has the right.
+   */
+  public boolean hasRight(String rightName, UUID program, UUID facility) {
+    Scope scope = rights.get(rightName);
+    return null != scope && scope.matches(program, facility);
+  }
+
+  private static final class Scope {
+    private boolean general;
+    private final Set<UUID> facilities = new HashSet<>();
+    private final Map<UUID, Set<UUID>> facilitiesByProgram = new HashMap<>();
+
+    private void add(UUID facility, UUID program) {
+      if (null == facility) {
+        general = true;
+        return;
+      }
+
+      facilities.add(facility);
+
+      if (null != program) {
+        facilitiesByProgram.computeIfAbsent(program, key -> new HashSet<>()).add(facility);
+      }
+    }
+
+    private boolean matches(UUID program, UUID facility) {
+      if (general || null == program && null == facility) {
+        return true;
+      }
+
+      if (null == program) {
+        return facilities.contains(facility);
+      }
+
+      Set<UUID> programFacilities = facilitiesByProgram
+          .getOrDefault(program, Collections.emptySet());
+
+      return null == facility ? !programFacilities.isEmpty() : programFacilities.contains(facility);
+    }
+  }
+
+}
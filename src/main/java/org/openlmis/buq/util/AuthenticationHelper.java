@@ -40,14 +40,14 @@ public class AuthenticationHelper {
 
   /**
    * Method returns current user based on Spring context
-   * and fetches his data from reference-data service.
+   * and fetches his data from reference-data service (once per request).
    *
    * @return UserDto entity of current user.
    * @throws AuthenticationMessageException if user cannot be found.
    */
   public UserDto getCurrentUser() {
     UUID userId = (UUID) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-    UserDto user = userReferenceDataService.findOne(userId);
+    UserDto user = RequestMemo.get("user", userId, userReferenceDataService::findOne);
 
     if (user == null) {
       throw new AuthenticationMessageException(new Message(ERROR_USER_NOT_FOUND, userId));
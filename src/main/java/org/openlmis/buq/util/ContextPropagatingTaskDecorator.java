@@ -0,0 +1,70 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Copies the security context and the request attributes of the submitting thread to the thread
+ * that runs the task, so work handed off to an executor still sees the authenticated user of the
+ * original request. The previous state of the running thread is restored afterwards, which also
+ * keeps the caller intact when the executor decides to run the task in the caller's thread.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+    return () -> {
+      SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+      RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+
+      try {
+        SecurityContextHolder.setContext(securityContext);
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        runnable.run();
+      } finally {
+        SecurityContextHolder.setContext(previousSecurityContext);
+        RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+      }
+    };
+  }
+
+  /**
+   * Wraps the task so that it runs without the request attributes of the thread it is handed to.
+   * Background work like cache refreshes outlives the request that triggered it, and the
+   * attributes of a completed request can no longer be used.
+   */
+  public static Runnable withoutRequest(Runnable task) {
+    return () -> {
+      RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+
+      try {
+        RequestContextHolder.resetRequestAttributes();
+        task.run();
+      } finally {
+        RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+      }
+    };
+  }
+
+}
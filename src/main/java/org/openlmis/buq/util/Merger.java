@@ -15,21 +15,21 @@
 
 package org.openlmis.buq.util;
 
-import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.Getter;
 import org.apache.commons.collections.CollectionUtils;
 import org.openlmis.buq.service.PageDto;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 @Getter(AccessLevel.PACKAGE)
 // we keep implementation classes inside this one to give a single access point by ofXXX methods.
@@ -105,15 +105,13 @@ public abstract class Merger<T> {
 
     @Override
     public T[] merge() {
-      return getElements()
-          .stream()
-          .filter(Objects::nonNull)
-          .flatMap(Arrays::stream)
-          .distinct()
-          .toArray(size -> {
-            Class<?> componentType = getElements().get(0).getClass().getComponentType();
-            return (T[]) Array.newInstance(componentType, size);
-          });
+      Accumulator<T> accumulator = new Accumulator<>();
+      getElements().forEach(accumulator::addAll);
+
+      // getClass() of a T[] is typed by its erasure, but it is the class of the T[] itself
+      @SuppressWarnings("unchecked")
+      Class<? extends T[]> arrayType = (Class<? extends T[]>) getElements().get(0).getClass();
+      return accumulator.toArray(arrayType);
     }
   }
 
@@ -125,16 +123,157 @@ public abstract class Merger<T> {
 
     @Override
     public PageDto<T> merge() {
-      List<T> content = getElements()
-          .stream()
-          .filter(Objects::nonNull)
-          .map(PageDto::getContent)
-          .flatMap(Collection::stream)
-          .distinct()
-          .collect(Collectors.toList());
-
-      Page<T> page = Pagination.getPage(content, PageRequest.of(0, content.size()));
-      return new PageDto<>(page);
+      Accumulator<T> accumulator = new Accumulator<>();
+      getElements().forEach(accumulator::addPage);
+
+      return accumulator.toPage();
+    }
+  }
+
+  /**
+   * Merges the responses of a split request one by one, as they arrive, so the responses do not
+   * have to be kept until all of them are received. Elements are deduplicated by the key the
+   * given function reads from them (usually the id), or by {@code equals} when there is no
+   * function or it returns {@code null}. The first occurrence of an element is kept, in the order
+   * of the responses.
+   *
+   * <p>While only one response has been added, it is kept as it is and returned without
+   * copying.
+   */
+  public static final class Accumulator<E> {
+    private final Function<? super E, ?> keyExtractor;
+
+    private E[] singleArray;
+    private PageDto<E> singlePage;
+    private int added;
+
+    private List<E> merged;
+    private Set<Object> keys;
+    private long totalElements;
+
+    /**
+     * Creates an accumulator that deduplicates the elements by {@code equals}.
+     */
+    public Accumulator() {
+      this(null);
+    }
+
+    /**
+     * Creates an accumulator that deduplicates the elements by the keys read by the given
+     * function.
+     */
+    public Accumulator(Function<? super E, ?> keyExtractor) {
+      this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Adds the elements of a response to the result.
+     */
+    public void addAll(E[] elements) {
+      if (null == elements) {
+        return;
+      }
+
+      if (0 == added++) {
+        singleArray = elements;
+        return;
+      }
+
+      startMerging();
+      addElements(Arrays.asList(elements));
+    }
+
+    /**
+     * Adds the content of a response to the result. The total number of elements of the result
+     * is the sum of the totals of the pages, less the number of duplicates that were dropped.
+     */
+    public void addPage(PageDto<E> page) {
+      if (null == page) {
+        return;
+      }
+
+      if (0 == added++) {
+        singlePage = page;
+        return;
+      }
+
+      startMerging();
+      totalElements += page.getTotalElements();
+      addElements(page.getContent());
+    }
+
+    /**
+     * Returns the merged elements as an array of the given type.
+     */
+    public E[] toArray(Class<? extends E[]> arrayType) {
+      if (added < 2 && null != singleArray) {
+        return singleArray;
+      }
+
+      List<E> result = null == merged ? Collections.emptyList() : merged;
+      return Arrays.copyOf(result.toArray(), result.size(), arrayType);
+    }
+
+    /**
+     * Returns the merged elements as the first page containing all of them.
+     */
+    public PageDto<E> toPage() {
+      if (added < 2) {
+        return null == singlePage ? new PageDto<>() : singlePage;
+      }
+
+      int size = merged.size();
+      long total = Math.max(totalElements, size);
+      int totalPages = 0 == size ? 1 : (int) Math.ceil((double) total / size);
+
+      return new PageDto<>(size >= total, true, totalPages, total, size, 0, size,
+          Sort.unsorted(), merged);
+    }
+
+    /**
+     * Checks whether nothing has been added yet.
+     */
+    public boolean isEmpty() {
+      return 0 == added;
+    }
+
+    private void startMerging() {
+      if (null != merged) {
+        return;
+      }
+
+      merged = new ArrayList<>();
+      keys = new HashSet<>();
+
+      if (null != singleArray) {
+        addElements(Arrays.asList(singleArray));
+        singleArray = null;
+      }
+
+      if (null != singlePage) {
+        totalElements += singlePage.getTotalElements();
+        addElements(singlePage.getContent());
+        singlePage = null;
+      }
+    }
+
+    private void addElements(Collection<E> elements) {
+      for (E element : elements) {
+        if (null == element) {
+          continue;
+        }
+
+        if (keys.add(keyOf(element))) {
+          merged.add(element);
+        } else {
+          --totalElements;
+        }
+      }
+    }
+
+    private Object keyOf(E element) {
+      Object key = null == keyExtractor ? null : keyExtractor.apply(element);
+      return null == key ? element : key;
     }
   }
 
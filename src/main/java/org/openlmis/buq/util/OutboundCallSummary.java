@@ -0,0 +1,142 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Sums up the calls to other services made while handling the current HTTP request: how many
+ * calls went to each endpoint, how long they took and how many bytes they returned. The summary
+ * is kept in the request attributes, so calls made by worker threads that run on behalf of the
+ * request are included. Outside of a request, or after it has completed, nothing is recorded.
+ */
+public final class OutboundCallSummary {
+
+  private static final String ATTRIBUTE = OutboundCallSummary.class.getName();
+
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a call to the summary of the current request.
+   *
+   * @param endpoint       method and path of the endpoint, for example
+   *                       {@code GET /api/facilities/{id}}.
+   * @param durationNanos  duration of the call in nanoseconds.
+   * @param responseBytes  size of the response in bytes, or a negative number if it is not
+   *                       known.
+   */
+  public static void record(String endpoint, long durationNanos, long responseBytes) {
+    OutboundCallSummary summary = current(true);
+
+    if (null != summary) {
+      summary.endpoints
+          .computeIfAbsent(endpoint, key -> new Endpoint())
+          .add(durationNanos, responseBytes);
+    }
+  }
+
+  /**
+   * Returns the summary of the current request, or {@code null} if no call has been made.
+   */
+  public static OutboundCallSummary current() {
+    return current(false);
+  }
+
+  private static OutboundCallSummary current(boolean create) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (null == attributes) {
+      return null;
+    }
+
+    synchronized (attributes) {
+      try {
+        OutboundCallSummary summary = (OutboundCallSummary) attributes
+            .getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (null == summary && create) {
+          summary = new OutboundCallSummary();
+          attributes.setAttribute(ATTRIBUTE, summary, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return summary;
+      } catch (IllegalStateException ex) {
+        // the request has completed, so a worker thread that outlived it records nothing
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns the total number of calls.
+   */
+  public long getCalls() {
+    return endpoints.values().stream().mapToLong(endpoint -> endpoint.calls.sum()).sum();
+  }
+
+  /**
+   * Returns the total duration of the calls in milliseconds.
+   */
+  public long getDurationMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(
+        endpoints.values().stream().mapToLong(endpoint -> endpoint.durationNanos.sum()).sum());
+  }
+
+  /**
+   * Returns the summary as text, listing the endpoints with the most calls first.
+   */
+  @Override
+  public String toString() {
+    String details = endpoints
+        .entrySet()
+        .stream()
+        .sorted(Comparator.comparing(
+            (Map.Entry<String, Endpoint> entry) -> entry.getValue().calls.sum()).reversed())
+        .map(entry -> entry.getKey() + " " + entry.getValue())
+        .collect(Collectors.joining(", "));
+
+    return getCalls() + " calls in " + getDurationMillis() + " ms: " + details;
+  }
+
+  private static final class Endpoint {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder durationNanos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private void add(long duration, long size) {
+      calls.increment();
+      durationNanos.add(duration);
+
+      if (size > 0) {
+        bytes.add(size);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "x" + calls.sum() + " (" + TimeUnit.NANOSECONDS.toMillis(durationNanos.sum())
+          + " ms, " + bytes.sum() + " bytes)";
+    }
+  }
+
+}
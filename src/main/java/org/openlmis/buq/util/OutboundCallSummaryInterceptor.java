@@ -0,0 +1,62 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records the number of calls to other services made by each handled request, tagged by the
+ * method and the URL pattern of the request, and logs the {@link OutboundCallSummary} of the
+ * request at debug level.
+ */
+public class OutboundCallSummaryInterceptor implements HandlerInterceptor {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(OutboundCallSummaryInterceptor.class);
+
+  private final MeterRegistry registry;
+
+  public OutboundCallSummaryInterceptor(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    OutboundCallSummary summary = OutboundCallSummary.current();
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = null == pattern ? "UNKNOWN" : pattern.toString();
+
+    DistributionSummary
+        .builder("inbound.outbound.calls")
+        .description("Calls to other services made while handling a request")
+        .tags("uri", uri, "method", request.getMethod())
+        .register(registry)
+        .record(null == summary ? 0 : summary.getCalls());
+
+    if (null != summary) {
+      LOGGER.debug("{} {}: {}", request.getMethod(), request.getRequestURI(), summary);
+    }
+  }
+
+}
@@ -17,9 +17,6 @@ package org.openlmis.buq.util;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.stream.Stream;
-import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.buq.service.RequestHeaders;
 import org.openlmis.buq.service.RequestParameters;
 import org.springframework.http.HttpEntity;
@@ -93,27 +90,11 @@ public final class RequestHelper {
   }
 
   /**
-   * Split the given {@link RequestParameters} into smaller chunks.
+   * Split the given {@link RequestParameters} into smaller chunks, so that each URI is not
+   * longer than the given length (as long as the parameters can be split).
    */
   public static URI[] splitRequest(String url, RequestParameters queryParams, int maxUrlLength) {
-    RequestParameters safeQueryParams = RequestParameters.init().setAll(queryParams);
-    URI uri = createUri(url, safeQueryParams);
-
-    if (uri.toString().length() > maxUrlLength) {
-      Pair<RequestParameters, RequestParameters> split = safeQueryParams.split();
-
-      if (null != split.getLeft() && null != split.getRight()) {
-        URI[] left = splitRequest(url, split.getLeft(), maxUrlLength);
-        URI[] right = splitRequest(url, split.getRight(), maxUrlLength);
-
-        return Stream
-            .concat(Arrays.stream(left), Arrays.stream(right))
-            .distinct()
-            .toArray(URI[]::new);
-      }
-    }
-
-    return new URI[]{uri};
+    return UriSplitter.split(url, queryParams, maxUrlLength);
   }
 
   private static HttpHeaders createHeadersWithAuth(String token) {
@@ -0,0 +1,97 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers values for the duration of the current HTTP request, so data that does not change
+ * while a request is handled (like the current user or a right) is fetched at most once per
+ * request. The values are kept in the request attributes and are dropped with the request.
+ * Outside of a request, or after it has completed, every call goes to the loader.
+ */
+public final class RequestMemo {
+
+  private static final String ATTRIBUTE_PREFIX = RequestMemo.class.getName() + ".";
+
+  private RequestMemo() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the value remembered for the given name and key in the current request, or loads
+   * and remembers it. Null values are not remembered.
+   *
+   * @param name   name of the memo, for example the type of the values.
+   * @param key    key of the value.
+   * @param loader function that loads the value if it is not remembered yet.
+   * @return the value for the key.
+   */
+  public static <K, V> V get(String name, K key, Function<K, V> loader) {
+    Map<K, V> memo = getMemo(name);
+
+    if (null == memo) {
+      return loader.apply(key);
+    }
+
+    V value = memo.get(key);
+
+    if (null == value) {
+      value = loader.apply(key);
+
+      if (null != value) {
+        memo.put(key, value);
+      }
+    }
+
+    return value;
+  }
+
+  private static <K, V> Map<K, V> getMemo(String name) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (null == attributes) {
+      return null;
+    }
+
+    String attributeName = ATTRIBUTE_PREFIX + name;
+
+    // the request can be handled by more than one thread (see ContextPropagatingTaskDecorator)
+    synchronized (attributes) {
+      try {
+        // the attribute is only set below, and a memo name is always used with the same types
+        @SuppressWarnings("unchecked")
+        Map<K, V> memo = (Map<K, V>) attributes
+            .getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+
+        if (null == memo) {
+          memo = new ConcurrentHashMap<>();
+          attributes.setAttribute(attributeName, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return memo;
+      } catch (IllegalStateException ex) {
+        // the request has completed, which is treated like being outside of a request
+        return null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.openlmis.buq.service.RequestParameters;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Splits a request with many query parameter values into URIs that fit into the given length.
+ *
+ * <p>The result is the same as halving the largest parameter until each URI is short enough,
+ * but every value is encoded only once and the length of a chunk is computed from prefix sums
+ * of the encoded lengths, so no URI is built until the chunks are known.
+ */
+final class UriSplitter {
+
+  private final String url;
+  private final int maxUrlLength;
+  private final String base;
+  private final List<Parameter> parameters = new ArrayList<>();
+
+  private UriSplitter(String url, RequestParameters queryParams, int maxUrlLength) {
+    this.url = url;
+    this.maxUrlLength = maxUrlLength;
+    this.base = RequestHelper.createUri(url).toString();
+
+    RequestParameters
+        .init()
+        .setAll(queryParams)
+        .forEach(entry -> parameters.add(new Parameter(entry.getKey(), entry.getValue())));
+  }
+
+  static URI[] split(String url, RequestParameters queryParams, int maxUrlLength) {
+    return new UriSplitter(url, queryParams, maxUrlLength).split();
+  }
+
+  private URI[] split() {
+    int size = parameters.size();
+    int[] order = new int[size];
+    int[] from = new int[size];
+    int[] to = new int[size];
+
+    for (int i = 0; i < size; ++i) {
+      order[i] = i;
+      to[i] = parameters.get(i).values.length;
+    }
+
+    Set<URI> uris = new LinkedHashSet<>();
+    split(new Chunk(order, from, to), uris);
+
+    return uris.toArray(new URI[0]);
+  }
+
+  private void split(Chunk chunk, Set<URI> uris) {
+    int largest = length(chunk) > maxUrlLength ? findLargest(chunk) : -1;
+
+    if (largest < 0) {
+      uris.add(toUri(chunk));
+      return;
+    }
+
+    int middle = chunk.from[largest] + (chunk.size(largest) + 1) / 2;
+
+    // the split parameter is moved to the end, the same as re-adding it to the parameters
+    int[] order = new int[chunk.order.length];
+    int index = 0;
+
+    for (int parameter : chunk.order) {
+      if (parameter != largest) {
+        order[index++] = parameter;
+      }
+    }
+
+    order[index] = largest;
+
+    int[] leftTo = chunk.to.clone();
+    leftTo[largest] = middle;
+
+    int[] rightFrom = chunk.from.clone();
+    rightFrom[largest] = middle;
+
+    split(new Chunk(order, chunk.from, leftTo), uris);
+    split(new Chunk(order, rightFrom, chunk.to), uris);
+  }
+
+  private int findLargest(Chunk chunk) {
+    int largest = -1;
+
+    for (int parameter : chunk.order) {
+      int size = chunk.size(parameter);
+
+      if (size > 1 && (largest < 0 || size > chunk.size(largest))) {
+        largest = parameter;
+      }
+    }
+
+    return largest;
+  }
+
+  private int length(Chunk chunk) {
+    int length = base.length();
+    int count = 0;
+
+    for (int parameter : chunk.order) {
+      length += parameters.get(parameter).length(chunk.from[parameter], chunk.to[parameter]);
+      count += chunk.size(parameter);
+    }
+
+    // one separator ('?' or '&') before each parameter
+    return length + count;
+  }
+
+  private URI toUri(Chunk chunk) {
+    if (base.indexOf('#') >= 0) {
+      // let the builder place the query before the fragment
+      UriComponentsBuilder builder = UriComponentsBuilder.newInstance().uri(URI.create(url));
+
+      for (int parameter : chunk.order) {
+        Parameter param = parameters.get(parameter);
+        builder.queryParam(param.key, (Object[]) Arrays
+            .copyOfRange(param.values, chunk.from[parameter], chunk.to[parameter]));
+      }
+
+      return builder.build(true).toUri();
+    }
+
+    StringBuilder uri = new StringBuilder(length(chunk)).append(base);
+    char separator = base.indexOf('?') >= 0 ? '&' : '?';
+
+    for (int parameter : chunk.order) {
+      Parameter param = parameters.get(parameter);
+
+      for (int i = chunk.from[parameter]; i < chunk.to[parameter]; ++i) {
+        uri.append(separator).append(param.key).append('=').append(param.values[i]);
+        separator = '&';
+      }
+    }
+
+    return URI.create(uri.toString());
+  }
+
+  private static final class Parameter {
+    private final String key;
+    private final String[] values;
+
+    // offsets[i] is the total length of the first i "key=value" pairs
+    private final int[] offsets;
+
+    Parameter(String key, List<String> values) {
+      this.key = key;
+      this.values = new String[values.size()];
+      this.offsets = new int[values.size() + 1];
+
+      // the values are kept in a linked list, so they are iterated instead of accessed by index
+      int index = 0;
+
+      for (String value : values) {
+        this.values[index] = encode(value);
+        this.offsets[index + 1] = offsets[index] + key.length() + 1 + this.values[index].length();
+        ++index;
+      }
+    }
+
+    private static String encode(String value) {
+      for (int i = 0; i < value.length(); ++i) {
+        if (!isUnreserved(value.charAt(i))) {
+          return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8);
+        }
+      }
+
+      // values like ids contain only unreserved characters and do not change when encoded
+      return value;
+    }
+
+    private static boolean isUnreserved(char character) {
+      return character >= 'a' && character <= 'z' || character >= 'A' && character <= 'Z'
+          || character >= '0' && character <= '9' || character == '-' || character == '.'
+          || character == '_' || character == '~';
+    }
+
+    int length(int from, int to) {
+      return offsets[to] - offsets[from];
+    }
+  }
+
+  private static final class Chunk {
+    private final int[] order;
+    private final int[] from;
+    private final int[] to;
+
+    Chunk(int[] order, int[] from, int[] to) {
+      this.order = order;
+      this.from = from;
+      this.to = to;
+    }
+
+    int size(int parameter) {
+      return to[parameter] - from[parameter];
+    }
+  }
+
+}
@@ -26,6 +26,7 @@ import org.openlmis.buq.exception.NotFoundException;
 import org.openlmis.buq.exception.ValidationMessageException;
 import org.openlmis.buq.i18n.MessageKeys;
 import org.openlmis.buq.repository.productgroup.ProductGroupRepository;
+import org.openlmis.buq.service.productgroup.ProductGroupResolver;
 import org.openlmis.buq.util.Pagination;
 import org.openlmis.buq.web.BaseController;
 import org.slf4j.Logger;
@@ -63,6 +64,9 @@ public class ProductGroupController extends BaseController {
   @Autowired
   private ProductGroupRepository productGroupRepository;
 
+  @Autowired
+  private ProductGroupResolver productGroupResolver;
+
   /**
    * Allows the creation of a new product group. If the id is specified, it will be ignored.
    */
@@ -74,6 +78,7 @@ public class ProductGroupController extends BaseController {
     ProductGroup newProductGroup = ProductGroup.newInstance(productGroup);
     newProductGroup.setId(null);
     newProductGroup = productGroupRepository.save(newProductGroup);
+    productGroupResolver.invalidate();
 
     return ProductGroupDto.newInstance(newProductGroup);
   }
@@ -102,6 +107,7 @@ public class ProductGroupController extends BaseController {
     }
 
     productGroupRepository.save(db);
+    productGroupResolver.invalidate();
 
     return ProductGroupDto.newInstance(db);
   }
@@ -117,6 +123,7 @@ public class ProductGroupController extends BaseController {
     }
 
     productGroupRepository.deleteById(id);
+    productGroupResolver.invalidate();
   }
 
   /**
@@ -0,0 +1,134 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.buq.builder.ProgramDtoDataBuilder;
+import org.openlmis.buq.dto.referencedata.ProgramDto;
+import org.openlmis.buq.service.referencedata.FacilityReferenceDataService;
+import org.openlmis.buq.service.referencedata.ProgramReferenceDataService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReferenceDataCacheInitializerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Mock
+  private ProgramReferenceDataService programReferenceDataService;
+
+  @Mock
+  private FacilityReferenceDataService facilityReferenceDataService;
+
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  private ReferenceDataCacheInitializer initializer;
+
+  private File snapshot;
+
+  @Before
+  public void setUp() {
+    snapshot = new File(folder.getRoot(), "snapshot.json");
+    initializer = new ReferenceDataCacheInitializer(
+        Arrays.asList(programReferenceDataService, facilityReferenceDataService),
+        objectMapper, Runnable::run);
+
+    ReflectionTestUtils.setField(initializer, "enabled", true);
+    ReflectionTestUtils.setField(initializer, "snapshotFile", snapshot.getPath());
+    ReflectionTestUtils.setField(initializer, "snapshotMaxAge", 60000L);
+
+    when(programReferenceDataService.isWarmable()).thenReturn(true);
+    when(facilityReferenceDataService.isWarmable()).thenReturn(false);
+  }
+
+  @Test
+  public void shouldWarmUpWarmableServices() {
+    initializer.run();
+
+    verify(programReferenceDataService).warmUp();
+    verify(facilityReferenceDataService, never()).warmUp();
+  }
+
+  @Test
+  public void shouldNotWarmUpIfDisabled() {
+    ReflectionTestUtils.setField(initializer, "enabled", false);
+
+    initializer.run();
+
+    verify(programReferenceDataService, never()).warmUp();
+  }
+
+  @Test
+  public void shouldNotFailIfWarmUpFails() {
+    when(programReferenceDataService.warmUp()).thenThrow(new IllegalStateException());
+
+    initializer.run();
+
+    verify(programReferenceDataService).warmUp();
+  }
+
+  @Test
+  public void shouldRestoreSnapshotAndRevalidateIt() {
+    ProgramDto program = new ProgramDtoDataBuilder().buildAsDto();
+    when(programReferenceDataService.getCachedObjects())
+        .thenReturn(Collections.singletonList(program));
+
+    initializer.writeSnapshot();
+    initializer.run();
+
+    ArgumentCaptor<JsonNode> objects = ArgumentCaptor.forClass(JsonNode.class);
+    verify(programReferenceDataService).restore(any(ObjectMapper.class), objects.capture(),
+        anyLong());
+    verify(programReferenceDataService).warmUp();
+
+    assertThat(objects.getValue().size(), is(1));
+    assertThat(objects.getValue().get(0).get("id").asText(), is(program.getId().toString()));
+  }
+
+  @Test
+  public void shouldIgnoreSnapshotOlderThanMaxAge() {
+    when(programReferenceDataService.getCachedObjects()).thenReturn(Collections.emptyList());
+
+    initializer.writeSnapshot();
+    assertThat(snapshot.setLastModified(System.currentTimeMillis() - 120000), is(true));
+    initializer.run();
+
+    verify(programReferenceDataService, never()).restore(any(), any(), anyLong());
+    verify(programReferenceDataService).warmUp();
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+public class RestTemplateConfigurationTest {
+
+  private RestTemplateConfiguration configuration = new RestTemplateConfiguration();
+
+  private PoolingHttpClientConnectionManager connectionManager;
+
+  private CloseableHttpClient httpClient;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(configuration, "maxConnections", 20);
+    ReflectionTestUtils.setField(configuration, "maxConnectionsPerRoute", 5);
+    ReflectionTestUtils.setField(configuration, "connectTimeout", 1000);
+    ReflectionTestUtils.setField(configuration, "readTimeout", 2000);
+    ReflectionTestUtils.setField(configuration, "connectionRequestTimeout", 500);
+    ReflectionTestUtils.setField(configuration, "idleTimeout", 3000L);
+    ReflectionTestUtils.setField(configuration, "validateAfterInactivity", 100);
+
+    connectionManager = configuration.httpClientConnectionManager();
+    httpClient = configuration.httpClient(connectionManager);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    httpClient.close();
+  }
+
+  @Test
+  public void shouldConfigureConnectionPoolLimits() {
+    assertThat(connectionManager.getMaxTotal(), is(20));
+    assertThat(connectionManager.getDefaultMaxPerRoute(), is(5));
+    assertThat(connectionManager.getValidateAfterInactivity(), is(100));
+  }
+
+  @Test
+  public void shouldUsePooledRequestFactory() {
+    RestTemplate restTemplate = configuration.restTemplate(httpClient);
+
+    assertThat(restTemplate.getRequestFactory(),
+        is(instanceOf(HttpComponentsClientHttpRequestFactory.class)));
+  }
+
+  @Test
+  public void shouldLogMetricsWhenEnabled() {
+    ReflectionTestUtils.setField(configuration, "metricsLoggingEnabled", true);
+    ReflectionTestUtils.setField(configuration, "metricsLoggingInterval", 60000L);
+    MeterRegistry registry = configuration.meterRegistry();
+
+    try {
+      assertThat(registry, is(instanceOf(LoggingMeterRegistry.class)));
+    } finally {
+      registry.close();
+    }
+  }
+
+  @Test
+  public void shouldRegisterConnectionPoolMetrics() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    configuration.httpClientConnectionManagerMetrics(connectionManager, registry);
+
+    assertThat(registry.find("httpcomponents.httpclient.pool.total.max").gauge(),
+        is(notNullValue()));
+    assertThat(registry.find("httpcomponents.httpclient.pool.total.max").gauge().value(),
+        is(20.0));
+  }
+
+}
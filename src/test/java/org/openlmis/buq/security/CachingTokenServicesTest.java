@@ -0,0 +1,152 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingTokenServicesTest {
+
+  private static final String TOKEN = "token";
+  private static final long TTL = 60000;
+  private static final long NOW = 1600000000000L;
+
+  @Mock
+  private ResourceServerTokenServices delegate;
+
+  private AtomicLong time = new AtomicLong();
+
+  private CachingTokenServices tokenServices;
+
+  @Before
+  public void setUp() {
+    tokenServices = new CachingTokenServices(delegate, TTL, 100, time::get,
+        Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC));
+  }
+
+  @Test
+  public void shouldCheckTokenOnce() {
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(authentication(Collections.emptyMap()));
+
+    OAuth2Authentication first = tokenServices.loadAuthentication(TOKEN);
+    OAuth2Authentication second = tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate).loadAuthentication(TOKEN);
+    assertNotSame(first, second);
+    assertEquals(first.getOAuth2Request(), second.getOAuth2Request());
+  }
+
+  @Test
+  public void shouldCheckTokenAgainAfterTtl() {
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(authentication(Collections.emptyMap()));
+
+    tokenServices.loadAuthentication(TOKEN);
+    advance(TTL + 1);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void shouldCheckTokenAgainAfterItExpires() {
+    long expiry = TimeUnit.MILLISECONDS.toSeconds(NOW) + 10;
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(
+        authentication(ImmutableMap.of(AccessTokenConverter.EXP, expiry)));
+
+    tokenServices.loadAuthentication(TOKEN);
+    advance(TimeUnit.SECONDS.toMillis(5));
+    tokenServices.loadAuthentication(TOKEN);
+    advance(TimeUnit.SECONDS.toMillis(6));
+    tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void shouldNotRememberExpiredToken() {
+    long expiry = TimeUnit.MILLISECONDS.toSeconds(NOW) - 1;
+    when(delegate.loadAuthentication(TOKEN)).thenReturn(
+        authentication(ImmutableMap.of(AccessTokenConverter.EXP, expiry)));
+
+    tokenServices.loadAuthentication(TOKEN);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void shouldNotRememberInvalidToken() {
+    when(delegate.loadAuthentication(TOKEN)).thenThrow(new InvalidTokenException(TOKEN));
+
+    for (int i = 0; i < 2; ++i) {
+      try {
+        tokenServices.loadAuthentication(TOKEN);
+      } catch (InvalidTokenException ex) {
+        assertEquals(0, tokenServices.size());
+      }
+    }
+
+    verify(delegate, times(2)).loadAuthentication(TOKEN);
+  }
+
+  @Test
+  public void shouldRegisterCacheMetrics() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    tokenServices.bindTo(registry);
+
+    assertNotNull(registry.find("cache.gets").tag("cache", CachingTokenServices.CACHE_NAME)
+        .functionCounter());
+  }
+
+  private void advance(long millis) {
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  private OAuth2Authentication authentication(Map<String, Serializable> extensions) {
+    OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "trusted-client",
+        Collections.emptyList(), true, Collections.emptySet(), Collections.emptySet(), null,
+        Collections.emptySet(), extensions);
+    return new OAuth2Authentication(request, null);
+  }
+
+}
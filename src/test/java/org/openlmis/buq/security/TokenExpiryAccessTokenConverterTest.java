@@ -0,0 +1,52 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+
+public class TokenExpiryAccessTokenConverterTest {
+
+  private static final String CLIENT_ID = "trusted-client";
+
+  private TokenExpiryAccessTokenConverter converter = new TokenExpiryAccessTokenConverter();
+
+  @Test
+  public void shouldKeepTokenExpiryInRequestExtensions() {
+    OAuth2Authentication authentication = converter.extractAuthentication(ImmutableMap.of(
+        AccessTokenConverter.CLIENT_ID, CLIENT_ID, AccessTokenConverter.EXP, 1600000000));
+
+    assertEquals(1600000000L,
+        authentication.getOAuth2Request().getExtensions().get(AccessTokenConverter.EXP));
+    assertEquals(CLIENT_ID, authentication.getOAuth2Request().getClientId());
+  }
+
+  @Test
+  public void shouldExtractAuthenticationOfTokenWithoutExpiry() {
+    OAuth2Authentication authentication = converter.extractAuthentication(
+        ImmutableMap.of(AccessTokenConverter.CLIENT_ID, CLIENT_ID));
+
+    assertFalse(authentication.getOAuth2Request().getExtensions()
+        .containsKey(AccessTokenConverter.EXP));
+    assertEquals(CLIENT_ID, authentication.getOAuth2Request().getClientId());
+  }
+
+}
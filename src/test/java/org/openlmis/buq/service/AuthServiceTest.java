@@ -21,14 +21,19 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableMap;
 import java.net.URI;
+import java.time.Clock;
 import java.util.Map;
 import java.util.UUID;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,6 +50,10 @@ import org.springframework.web.client.RestTemplate;
 @RunWith(MockitoJUnitRunner.class)
 public class AuthServiceTest {
   private static final String TOKEN = UUID.randomUUID().toString();
+  private static final String NEW_TOKEN = UUID.randomUUID().toString();
+  private static final long NOW = 1_000_000L;
+  private static final long REFRESH_AHEAD = 60_000L;
+  private static final int EXPIRES_IN = 3600;
   private static final String AUTHORIZATION_URL = "http://localhost/auth/oauth/token";
   private static final URI AUTHORIZATION_URI = URI.create(
       AUTHORIZATION_URL + "?grant_type=client_credentials"
@@ -53,6 +62,9 @@ public class AuthServiceTest {
   @Mock
   private RestTemplate restTemplate;
 
+  @Mock
+  private Clock clock;
+
   @Captor
   private ArgumentCaptor<HttpEntity<String>> entityStringCaptor;
 
@@ -66,6 +78,15 @@ public class AuthServiceTest {
     ReflectionTestUtils.setField(authService, "clientId", "trusted-client");
     ReflectionTestUtils.setField(authService, "clientSecret", "secret");
     ReflectionTestUtils.setField(authService, "authorizationUrl", AUTHORIZATION_URL);
+    ReflectionTestUtils.setField(authService, "tokenRefreshAhead", REFRESH_AHEAD);
+
+    when(clock.millis()).thenReturn(NOW);
+    authService.setClock(clock);
+  }
+
+  @After
+  public void tearDown() {
+    authService.shutdown();
   }
 
   @Test
@@ -93,4 +114,80 @@ public class AuthServiceTest {
     );
   }
 
+  @Test
+  public void shouldReuseTokenUntilItExpires() {
+    mockTokenResponses();
+
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+
+    verify(restTemplate, times(1)).exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class));
+  }
+
+  @Test
+  public void shouldRequestNewTokenAfterItExpired() {
+    mockTokenResponses();
+    authService.obtainAccessToken();
+
+    when(clock.millis()).thenReturn(NOW + EXPIRES_IN * 1000L);
+
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+  }
+
+  @Test
+  public void shouldRefreshTokenInBackgroundBeforeItExpires() {
+    mockTokenResponses();
+    authService.obtainAccessToken();
+
+    when(clock.millis()).thenReturn(NOW + EXPIRES_IN * 1000L - REFRESH_AHEAD + 1);
+
+    // the current token is still valid, so it is returned while a new one is requested
+    assertThat(authService.obtainAccessToken(), is(TOKEN));
+
+    verify(restTemplate, timeout(5000).times(2)).exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class));
+    verify(restTemplate, after(100).times(2)).exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class));
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+  }
+
+  @Test
+  public void shouldKeepNewerTokenWhenClearingCacheOfPreviousOne() {
+    mockTokenResponses();
+    authService.obtainAccessToken();
+    authService.clearTokenCache(TOKEN);
+    authService.obtainAccessToken();
+
+    authService.clearTokenCache(TOKEN);
+
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+    verify(restTemplate, times(2)).exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class));
+  }
+
+  @Test
+  public void shouldRequestNewTokenWhenJustObtainedTokenWasRejected() {
+    mockTokenResponses();
+    authService.obtainAccessToken();
+
+    authService.clearTokenCache(TOKEN);
+
+    assertThat(authService.obtainAccessToken(), is(NEW_TOKEN));
+  }
+
+  private void mockTokenResponses() {
+    ResponseEntity<Object> first = mock(ResponseEntity.class);
+    when(first.getBody())
+        .thenReturn(ImmutableMap.of("access_token", TOKEN, "expires_in", EXPIRES_IN));
+
+    ResponseEntity<Object> second = mock(ResponseEntity.class);
+    when(second.getBody())
+        .thenReturn(ImmutableMap.of("access_token", NEW_TOKEN, "expires_in", EXPIRES_IN));
+
+    when(restTemplate.exchange(
+        eq(AUTHORIZATION_URI), eq(HttpMethod.POST), any(HttpEntity.class), eq(Object.class)
+    )).thenReturn(first, second);
+  }
+
 }
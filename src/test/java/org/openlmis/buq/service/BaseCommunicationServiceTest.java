@@ -34,11 +34,19 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.junit.After;
@@ -54,13 +62,17 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.openlmis.buq.dto.ResultDto;
 import org.openlmis.buq.util.DynamicPageTypeReference;
 import org.openlmis.buq.util.DynamicResultDtoTypeReference;
+import org.openlmis.buq.util.FutureHelper;
+import org.openlmis.buq.util.RequestHelper;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
@@ -71,6 +83,9 @@ public abstract class BaseCommunicationServiceTest<T> {
   private static final String TOKEN = UUID.randomUUID().toString();
   protected static final String TOKEN_HEADER = "Bearer " + TOKEN;
 
+  private static final String ETAG = "\"etag\"";
+  private static final long CONTENT_LENGTH = 100L;
+
   private static final String URI_QUERY_NAME = "name";
   private static final String URI_QUERY_VALUE = "value";
 
@@ -173,7 +188,7 @@ public abstract class BaseCommunicationServiceTest<T> {
     expectedException.expect(DataRetrievalException.class);
     service.findOne(id);
 
-    verify(authService, times(1)).clearTokenCache();
+    verify(authService, times(1)).clearTokenCache(TOKEN);
     verify(authService, times(2)).obtainAccessToken();
   }
 
@@ -191,7 +206,7 @@ public abstract class BaseCommunicationServiceTest<T> {
     expectedException.expect(DataRetrievalException.class);
     service.findOne(id);
 
-    verify(authService, times(1)).clearTokenCache();
+    verify(authService, times(1)).clearTokenCache(TOKEN);
     verify(authService, times(2)).obtainAccessToken();
   }
 
@@ -211,6 +226,222 @@ public abstract class BaseCommunicationServiceTest<T> {
         .isUriStartsWith(service.getServiceUrl() + service.getUrl());
   }
 
+  @Test
+  public void shouldRunSplitRequestsInParallel() {
+    // given
+    Set<UUID> ids = Stream
+        .generate(UUID::randomUUID)
+        .limit(200)
+        .collect(Collectors.toSet());
+    RequestParameters parameters = RequestParameters.init().set("id", ids);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    service.setExecutor(executor);
+    ReflectionTestUtils.setField(service, "parallelRequestsEnabled", true);
+
+    // when
+    T dto = mockArrayResponseEntityAndGetDto();
+    List<T> found;
+
+    try {
+      found = service.findAll("", parameters);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // then
+    int expectedRequests = RequestHelper
+        .splitRequest(service.getServiceUrl() + service.getUrl(), parameters, 2000)
+        .length;
+
+    assertThat(expectedRequests > 1, is(true));
+    assertThat(found, hasItem(dto));
+
+    verify(restTemplate, times(expectedRequests)).exchange(any(URI.class),
+        eq(HttpMethod.GET), any(HttpEntity.class), eq(service.getArrayResultClass()));
+  }
+
+  @Test
+  public void shouldRevalidateRequestWithETag() {
+    // given
+    enableETagCache(0L);
+
+    T instance = generateInstance();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+    headers.setContentLength(CONTENT_LENGTH);
+    UUID id = UUID.randomUUID();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenReturn(new ResponseEntity<>(instance, headers, HttpStatus.OK))
+        .thenReturn(new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED));
+
+    // when
+    T first = service.findOne(id);
+    T second = service.findOne(id);
+
+    // then
+    assertThat(first, is(instance));
+    assertThat(second, is(instance));
+
+    verify(restTemplate, times(2)).exchange(
+        uriCaptor.capture(), any(HttpMethod.class), entityCaptor.capture(),
+        eq(getService().getResultClass()));
+
+    assertThat(entityCaptor.getAllValues().get(0).getHeaders().getIfNoneMatch(), hasSize(0));
+    assertThat(entityCaptor.getAllValues().get(1).getHeaders().getIfNoneMatch(),
+        hasItem(ETAG));
+    assertThat(entityCaptor.getAllValues().get(1).getHeaders().get(HttpHeaders.AUTHORIZATION),
+        hasItem(TOKEN_HEADER));
+  }
+
+  @Test
+  public void shouldNotRevalidateRequestIfResponseHadNoETag() {
+    // given
+    enableETagCache(0L);
+    UUID id = UUID.randomUUID();
+
+    // when
+    mockResponseEntityAndGetDto();
+    service.findOne(id);
+    service.findOne(id);
+
+    // then
+    verify(restTemplate, times(2)).exchange(
+        uriCaptor.capture(), any(HttpMethod.class), entityCaptor.capture(),
+        eq(getService().getResultClass()));
+
+    assertThat(entityCaptor.getAllValues().get(1).getHeaders().getIfNoneMatch(), hasSize(0));
+  }
+
+  @Test
+  public void shouldNotRevalidateRequestIfResponseHadNoContentLength() {
+    // given
+    enableETagCache(0L);
+
+    UUID id = UUID.randomUUID();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenReturn(new ResponseEntity<>(generateInstance(), headers, HttpStatus.OK));
+
+    // when
+    service.findOne(id);
+    service.findOne(id);
+
+    // then
+    verify(restTemplate, times(2)).exchange(
+        uriCaptor.capture(), any(HttpMethod.class), entityCaptor.capture(),
+        eq(getService().getResultClass()));
+
+    assertThat(entityCaptor.getAllValues().get(1).getHeaders().getIfNoneMatch(), hasSize(0));
+  }
+
+  @Test
+  public void shouldFindByIdAsynchronously() throws Exception {
+    // given
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    service.setAsyncExecutor(executor);
+    UUID id = UUID.randomUUID();
+
+    try {
+      // when
+      T instance = mockResponseEntityAndGetDto();
+      CompletableFuture<T> found = service.findOneAsync(id);
+
+      // then
+      assertThat(found.get(5, TimeUnit.SECONDS), is(instance));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldCompleteAsynchronousCallExceptionally() {
+    // given
+    UUID id = UUID.randomUUID();
+    mockRequestFail(HttpStatus.BAD_REQUEST);
+
+    // when
+    CompletableFuture<T> found = service.findOneAsync(id);
+
+    // then
+    assertThat(found.isCompletedExceptionally(), is(true));
+    expectedException.expect(DataRetrievalException.class);
+    FutureHelper.join(found);
+  }
+
+  @Test
+  public void shouldServeStoredResponseIfServiceIsUnavailable() {
+    // given
+    enableETagCache(60000L);
+
+    T instance = generateInstance();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+    headers.setContentLength(CONTENT_LENGTH);
+    UUID id = UUID.randomUUID();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenReturn(new ResponseEntity<>(instance, headers, HttpStatus.OK))
+        .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+    // when
+    service.findOne(id);
+    T found = service.findOne(id);
+
+    // then
+    assertThat(found, is(instance));
+  }
+
+  @Test
+  public void shouldNotServeStoredResponseIfItIsTooOld() {
+    // given
+    enableETagCache(-1L);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+    headers.setContentLength(CONTENT_LENGTH);
+    UUID id = UUID.randomUUID();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenReturn(new ResponseEntity<>(generateInstance(), headers, HttpStatus.OK))
+        .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+    // when
+    service.findOne(id);
+
+    expectedException.expect(DataRetrievalException.class);
+    service.findOne(id);
+  }
+
+  @Test
+  public void shouldRetryTransientFailures() {
+    // given
+    service.setResiliencePolicy(new MockEnvironment()
+        .withProperty("request.resilience.maxAttempts", "2"), new SimpleMeterRegistry());
+
+    UUID id = UUID.randomUUID();
+    T instance = generateInstance();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        eq(getService().getResultClass())))
+        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+        .thenReturn(new ResponseEntity<>(instance, HttpStatus.OK));
+
+    // when
+    T found = service.findOne(id);
+
+    // then
+    assertThat(found, is(instance));
+    verify(restTemplate, times(2)).exchange(any(URI.class), eq(HttpMethod.GET),
+        any(HttpEntity.class), eq(getService().getResultClass()));
+  }
+
   protected abstract T generateInstance();
 
   protected abstract BaseCommunicationService<T> getService();
@@ -225,6 +456,12 @@ public abstract class BaseCommunicationServiceTest<T> {
     return service;
   }
 
+  private void enableETagCache(long maxStale) {
+    ReflectionTestUtils.setField(service, "etagCacheMaxBytes", 1000L);
+    ReflectionTestUtils.setField(service, "etagCacheMaxStale", maxStale);
+    service.initETagCache();
+  }
+
   protected void disableAuthCheck() {
     checkAuth = false;
   }
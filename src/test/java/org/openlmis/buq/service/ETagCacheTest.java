@@ -0,0 +1,69 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import org.junit.Test;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+import org.openlmis.buq.dto.referencedata.ProgramDto;
+import org.openlmis.buq.util.DynamicPageTypeReference;
+
+public class ETagCacheTest {
+
+  private static final URI FACILITIES_URI = URI.create("http://localhost/api/facilities");
+  private static final String ETAG = "\"etag\"";
+  private static final long LENGTH = 100L;
+
+  private ETagCache cache = new ETagCache(1000);
+
+  @Test
+  public void shouldFindEntryForEqualDynamicType() {
+    Object body = new Object();
+    cache.put(FACILITIES_URI, pageOf(FacilityDto.class), ETAG, body, LENGTH);
+
+    ETagCache.Entry entry = cache.get(FACILITIES_URI, pageOf(FacilityDto.class));
+
+    assertThat(entry.getEtag(), is(ETAG));
+    assertThat(entry.getBody(), is(body));
+    assertThat(entry.getLength(), is(LENGTH));
+  }
+
+  @Test
+  public void shouldNotFindEntryForOtherType() {
+    cache.put(FACILITIES_URI, pageOf(FacilityDto.class), ETAG, new Object(), LENGTH);
+
+    assertThat(cache.get(FACILITIES_URI, pageOf(ProgramDto.class)), is(nullValue()));
+    assertThat(cache.get(FACILITIES_URI, FacilityDto.class), is(nullValue()));
+  }
+
+  @Test
+  public void shouldRemoveEntry() {
+    cache.put(FACILITIES_URI, FacilityDto.class, ETAG, new Object(), LENGTH);
+    cache.remove(FACILITIES_URI, FacilityDto.class);
+
+    assertThat(cache.get(FACILITIES_URI, FacilityDto.class), is(nullValue()));
+  }
+
+  private Type pageOf(Class<?> type) {
+    return new DynamicPageTypeReference<>(type).getType();
+  }
+
+}
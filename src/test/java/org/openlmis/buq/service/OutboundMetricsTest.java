@@ -0,0 +1,151 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class OutboundMetricsTest {
+
+  private static final URI FACILITY = URI.create(
+      "http://localhost/api/facilities/f6b3b4b2-3f6d-4a3e-9b0e-2c1b5c0b7a11?expand=type");
+  private static final String FACILITY_TEMPLATE = "/api/facilities/{id}";
+  private static final String BODY = "body";
+  private static final String SERVICE_NAME = "FacilityReferenceDataService";
+
+  private MeterRegistry registry = new SimpleMeterRegistry();
+
+  private OutboundMetrics metrics = new OutboundMetrics(registry, SERVICE_NAME);
+
+  @Test
+  public void shouldReplaceIdsInTemplate() {
+    assertThat(OutboundMetrics.template(FACILITY), is(FACILITY_TEMPLATE));
+    assertThat(OutboundMetrics.template(URI.create(
+        "http://localhost/api/users/f6b3b4b2-3f6d-4a3e-9b0e-2c1b5c0b7a11/roleAssignments")),
+        is("/api/users/{id}/roleAssignments"));
+    assertThat(OutboundMetrics.template(URI.create("http://localhost/api/programs")),
+        is("/api/programs"));
+  }
+
+  @Test
+  public void shouldRecordSuccessfulCall() {
+    metrics.record(FACILITY, HttpMethod.GET, this::respond);
+
+    assertThat(findTimer("200").count(), is(1L));
+  }
+
+  @Test
+  public void shouldRecordCallAfterRequestHasCompleted() {
+    ServletRequestAttributes attributes =
+        new ServletRequestAttributes(new MockHttpServletRequest());
+    attributes.requestCompleted();
+    RequestContextHolder.setRequestAttributes(attributes);
+
+    try {
+      ResponseEntity<String> response = metrics.record(FACILITY, HttpMethod.GET, this::respond);
+
+      assertThat(response.getBody(), is(BODY));
+      assertThat(findTimer("200").count(), is(1L));
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+  }
+
+  @Test
+  public void shouldRecordStatusOfFailedCall() {
+    recordFailure(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+    assertThat(findTimer("404").count(), is(1L));
+  }
+
+  @Test
+  public void shouldRecordCallThatCouldNotReachService() {
+    recordFailure(new ResourceAccessException("connection refused"));
+
+    assertThat(findTimer("IO_ERROR").count(), is(1L));
+  }
+
+  @Test
+  public void shouldNotRecordUnknownResponseSize() {
+    metrics.record(FACILITY, HttpMethod.GET, this::respond);
+
+    assertThat(registry.find("outbound.response.size").summary(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldRecordNumberOfChunks() {
+    metrics.recordChunks(URI.create("http://localhost/api/facilities"), HttpMethod.GET, 3);
+
+    assertThat(registry
+        .get("outbound.requests.chunks")
+        .tags("service", SERVICE_NAME, "uri", "/api/facilities", "method", "GET")
+        .summary()
+        .totalAmount(), is(3.0));
+  }
+
+  @Test
+  public void shouldOnlyPassCallThroughWithoutRegistry() {
+    OutboundMetrics withoutRegistry = new OutboundMetrics(null, SERVICE_NAME);
+
+    ResponseEntity<String> response =
+        withoutRegistry.record(FACILITY, HttpMethod.GET, this::respond);
+    withoutRegistry.recordChunks(FACILITY, HttpMethod.GET, 2);
+
+    assertThat(response.getBody(), is(BODY));
+  }
+
+  private void recordFailure(RuntimeException failure) {
+    try {
+      metrics.record(FACILITY, HttpMethod.GET, () -> {
+        throw failure;
+      });
+      fail("Expected the failure to be rethrown");
+    } catch (RuntimeException ex) {
+      assertThat(ex, is(sameInstance(failure)));
+    }
+  }
+
+  private ResponseEntity<String> respond() {
+    return new ResponseEntity<>(BODY, HttpStatus.OK);
+  }
+
+  private Timer findTimer(String status) {
+    return registry
+        .get("outbound.requests")
+        .tags("service", SERVICE_NAME, "uri", FACILITY_TEMPLATE, "method", "GET",
+            "status", status)
+        .timer();
+  }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class ResiliencePolicyTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int FAILURE_THRESHOLD = 4;
+  private static final long OPEN_DURATION = 30000;
+  private static final String RESULT = "result";
+
+  private Clock clock = mock(Clock.class);
+
+  private AtomicInteger calls = new AtomicInteger();
+
+  private ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  private ResiliencePolicy policy;
+
+  @Before
+  public void setUp() {
+    when(clock.millis()).thenReturn(0L);
+    policy = new ResiliencePolicy(
+        new ResiliencePolicy.Settings(MAX_ATTEMPTS, 1, 2, FAILURE_THRESHOLD, OPEN_DURATION, 1, 10),
+        clock);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldRetryTransientFailures() {
+    String result = policy.execute(HttpMethod.GET, () -> {
+      if (calls.incrementAndGet() < MAX_ATTEMPTS) {
+        throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+      }
+      return RESULT;
+    });
+
+    assertThat(result, is(RESULT));
+    assertThat(calls.get(), is(MAX_ATTEMPTS));
+  }
+
+  @Test
+  public void shouldRetryConnectionErrors() {
+    String result = policy.execute(HttpMethod.GET, () -> {
+      if (calls.incrementAndGet() < 2) {
+        throw new ResourceAccessException("Read timed out");
+      }
+      return RESULT;
+    });
+
+    assertThat(result, is(RESULT));
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldStopRetryingAfterMaxAttempts() {
+    executeAndExpect(HttpMethod.GET, failing(HttpStatus.SERVICE_UNAVAILABLE),
+        HttpServerErrorException.class);
+
+    assertThat(calls.get(), is(MAX_ATTEMPTS));
+  }
+
+  @Test
+  public void shouldNotRetryClientErrors() {
+    executeAndExpect(HttpMethod.GET, failing(HttpStatus.BAD_REQUEST),
+        HttpClientErrorException.class);
+
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void shouldNotRetryInternalServerErrors() {
+    executeAndExpect(HttpMethod.GET, failing(HttpStatus.INTERNAL_SERVER_ERROR),
+        HttpServerErrorException.class);
+
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void shouldNotRetryPostRequests() {
+    executeAndExpect(HttpMethod.POST, failing(HttpStatus.SERVICE_UNAVAILABLE),
+        HttpServerErrorException.class);
+
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void shouldOpenCircuitAfterConsecutiveTransientFailures() {
+    openCircuit();
+
+    executeAndExpect(HttpMethod.GET, () -> RESULT,
+        ResiliencePolicy.CallNotPermittedException.class);
+
+    assertThat(calls.get(), is(FAILURE_THRESHOLD));
+    assertThat(policy.getState(), is(ResiliencePolicy.State.OPEN));
+  }
+
+  @Test
+  public void shouldNotOpenCircuitOnClientErrors() {
+    for (int i = 0; i < FAILURE_THRESHOLD; ++i) {
+      executeAndExpect(HttpMethod.POST, failing(HttpStatus.NOT_FOUND),
+          HttpClientErrorException.class);
+    }
+
+    assertThat(policy.getState(), is(ResiliencePolicy.State.CLOSED));
+  }
+
+  @Test
+  public void shouldCloseCircuitAfterSuccessfulTrialCall() {
+    openCircuit();
+    when(clock.millis()).thenReturn(OPEN_DURATION);
+
+    assertThat(policy.getState(), is(ResiliencePolicy.State.HALF_OPEN));
+    assertThat(policy.execute(HttpMethod.GET, () -> RESULT), is(RESULT));
+    assertThat(policy.getState(), is(ResiliencePolicy.State.CLOSED));
+  }
+
+  @Test
+  public void shouldReopenCircuitAfterFailedTrialCall() {
+    openCircuit();
+    when(clock.millis()).thenReturn(OPEN_DURATION);
+
+    executeAndExpect(HttpMethod.POST, failing(HttpStatus.GATEWAY_TIMEOUT),
+        HttpServerErrorException.class);
+
+    assertThat(policy.getState(), is(ResiliencePolicy.State.OPEN));
+  }
+
+  @Test
+  public void shouldRejectCallsWhenBulkheadIsFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.submit(() -> policy.execute(HttpMethod.GET, () -> {
+      started.countDown();
+      await(release);
+      return RESULT;
+    }));
+    await(started);
+
+    try {
+      executeAndExpect(HttpMethod.GET, () -> RESULT,
+          ResiliencePolicy.CallNotPermittedException.class);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void shouldReadSettingsOfResourceWithFallbackToDefaults() {
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("request.resilience.maxAttempts", "3")
+        .withProperty("request.resilience.maxConcurrentCalls", "40")
+        .withProperty("request.resilience.orderables.maxConcurrentCalls", "10");
+
+    ResiliencePolicy.Settings settings = ResiliencePolicy.readSettings(environment, "orderables");
+
+    assertThat(settings.getMaxAttempts(), is(3L));
+    assertThat(settings.getMaxConcurrentCalls(), is(10));
+    assertThat(settings.getFailureThreshold(), is(0L));
+  }
+
+  @Test
+  public void shouldRegisterMetrics() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    policy.bindTo(registry, Tags.of("service", "test"));
+    executeAndExpect(HttpMethod.GET, failing(HttpStatus.SERVICE_UNAVAILABLE),
+        HttpServerErrorException.class);
+
+    assertThat(registry.get("outbound.retries").functionCounter().count(),
+        is((double) MAX_ATTEMPTS - 1));
+    assertThat(registry.get("outbound.bulkhead.available").gauge().value(), is(1.0));
+    assertThat(registry.get("outbound.circuitbreaker.state").gauge().value(), is(0.0));
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < FAILURE_THRESHOLD; ++i) {
+      executeAndExpect(HttpMethod.POST, failing(HttpStatus.SERVICE_UNAVAILABLE),
+          HttpServerErrorException.class);
+    }
+  }
+
+  private Supplier<String> failing(HttpStatus status) {
+    return () -> {
+      calls.incrementAndGet();
+
+      if (status.is4xxClientError()) {
+        throw new HttpClientErrorException(status);
+      }
+      throw new HttpServerErrorException(status);
+    };
+  }
+
+  private void executeAndExpect(HttpMethod method, Supplier<String> call, Class<?> exception) {
+    try {
+      policy.execute(method, call);
+      fail("Expected " + exception.getSimpleName());
+    } catch (RuntimeException ex) {
+      assertThat(ex, instanceOf(exception));
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
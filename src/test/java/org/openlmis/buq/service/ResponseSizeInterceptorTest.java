@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseSizeInterceptorTest {
+
+  private ResponseSizeInterceptor interceptor = new ResponseSizeInterceptor();
+
+  private HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+  @Before
+  public void setUp() {
+    ResponseSizeInterceptor.takeResponseSize();
+  }
+
+  @Test
+  public void shouldCountBytesOfResponseBody() throws IOException {
+    response.setEntity(entity("[{\"id\":1},{\"id\":2}]"));
+
+    interceptor.process(response, new BasicHttpContext());
+    EntityUtils.toByteArray(response.getEntity());
+
+    assertThat(ResponseSizeInterceptor.takeResponseSize(), is(19L));
+    assertThat(ResponseSizeInterceptor.takeResponseSize(), is(-1L));
+  }
+
+  @Test
+  public void shouldCountPartiallyReadBody() throws IOException {
+    response.setEntity(entity("0123456789"));
+    interceptor.process(response, new BasicHttpContext());
+
+    try (InputStream content = response.getEntity().getContent()) {
+      content.read(new byte[4]);
+    }
+
+    assertThat(ResponseSizeInterceptor.takeResponseSize(), is(4L));
+  }
+
+  @Test
+  public void shouldReturnZeroForResponseWithoutBody() {
+    interceptor.process(response, new BasicHttpContext());
+
+    assertThat(ResponseSizeInterceptor.takeResponseSize(), is(0L));
+  }
+
+  @Test
+  public void shouldReturnUnknownSizeUntilBodyIsClosed() throws IOException {
+    response.setEntity(entity("body"));
+    interceptor.process(response, new BasicHttpContext());
+    response.getEntity().getContent().read();
+
+    assertThat(ResponseSizeInterceptor.takeResponseSize(), is(-1L));
+  }
+
+  private HttpEntity entity(String body) {
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    return entity;
+  }
+
+}
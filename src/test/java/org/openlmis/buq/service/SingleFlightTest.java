@@ -0,0 +1,139 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+public class SingleFlightTest {
+
+  private static final String KEY = "GET http://localhost/api/facilities";
+  private static final int CALLERS = 5;
+
+  private SingleFlight singleFlight = new SingleFlight();
+
+  private ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+  private AtomicInteger calls = new AtomicInteger();
+
+  private CountDownLatch release = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldShareResultOfConcurrentCalls() throws Exception {
+    List<Future<String>> results = submitCalls(() -> {
+      calls.incrementAndGet();
+      await();
+      return "result";
+    });
+
+    for (Future<String> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS), is("result"));
+    }
+
+    assertThat(calls.get(), is(1));
+    assertThat(singleFlight.getCoalescedCount(), is((long) CALLERS - 1));
+  }
+
+  @Test
+  public void shouldShareExceptionOfConcurrentCalls() throws Exception {
+    HttpClientErrorException exception = new HttpClientErrorException(HttpStatus.NOT_FOUND);
+    List<Future<String>> results = submitCalls(() -> {
+      calls.incrementAndGet();
+      await();
+      throw exception;
+    });
+
+    for (Future<String> result : results) {
+      try {
+        result.get(5, TimeUnit.SECONDS);
+        fail("the exception of the call should be thrown");
+      } catch (ExecutionException ex) {
+        assertThat(ex.getCause(), is(sameInstance(exception)));
+      }
+    }
+
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void shouldRunCallAgainAfterPreviousOneFinished() {
+    singleFlight.execute(KEY, calls::incrementAndGet);
+    singleFlight.execute(KEY, calls::incrementAndGet);
+
+    assertThat(calls.get(), is(2));
+    assertThat(singleFlight.getCoalescedCount(), is(0L));
+  }
+
+  @Test
+  public void shouldNotShareCallsWithDifferentKeys() {
+    singleFlight.execute(KEY, calls::incrementAndGet);
+    singleFlight.execute(KEY + "?id=1", calls::incrementAndGet);
+
+    assertThat(calls.get(), is(2));
+  }
+
+  private List<Future<String>> submitCalls(Supplier<String> call) throws InterruptedException {
+    List<Future<String>> results = new ArrayList<>();
+    results.add(executor.submit(() -> singleFlight.execute(KEY, call)));
+
+    // wait until the first call is running, so the others join it
+    while (calls.get() == 0) {
+      Thread.sleep(1);
+    }
+
+    for (int i = 1; i < CALLERS; ++i) {
+      results.add(executor.submit(() -> singleFlight.execute(KEY, call)));
+    }
+
+    while (singleFlight.getCoalescedCount() < CALLERS - 1) {
+      Thread.sleep(1);
+    }
+
+    release.countDown();
+    return results;
+  }
+
+  private void await() {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.buq;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openlmis.buq.builder.FacilityDtoDataBuilder;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+import org.openlmis.buq.dto.referencedata.FacilityTypeDto;
+
+public class ApprovalScopeTest {
+
+  private final FacilityDto primaryHealthCare = facility(true);
+  private final FacilityDto hospital = facility(false);
+
+  @Test
+  public void shouldAllowAllFacilitiesWithBothRights() {
+    ApprovalScope scope = new ApprovalScope(true, true);
+
+    assertFalse(scope.isEmpty());
+    assertTrue(scope.allows(primaryHealthCare));
+    assertTrue(scope.allows(hospital));
+  }
+
+  @Test
+  public void shouldAllowOtherThanPrimaryHealthCareFacilitiesWithMohRight() {
+    ApprovalScope scope = new ApprovalScope(true, false);
+
+    assertFalse(scope.allows(primaryHealthCare));
+    assertTrue(scope.allows(hospital));
+  }
+
+  @Test
+  public void shouldAllowPrimaryHealthCareFacilitiesWithPoralgRight() {
+    ApprovalScope scope = new ApprovalScope(false, true);
+
+    assertTrue(scope.allows(primaryHealthCare));
+    assertFalse(scope.allows(hospital));
+  }
+
+  @Test
+  public void shouldAllowNothingWithoutRights() {
+    ApprovalScope scope = new ApprovalScope(false, false);
+
+    assertTrue(scope.isEmpty());
+    assertFalse(scope.allows(primaryHealthCare));
+    assertFalse(scope.allows(hospital));
+  }
+
+  private FacilityDto facility(boolean isPrimaryHealthCare) {
+    FacilityTypeDto type = new FacilityTypeDto();
+    type.setPrimaryHealthCare(isPrimaryHealthCare);
+
+    return new FacilityDtoDataBuilder().withType(type).buildAsDto();
+  }
+
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -34,6 +35,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Test;
@@ -75,13 +77,11 @@ import org.openlmis.buq.repository.buq.BottomUpQuantificationLineItemRepository;
 import org.openlmis.buq.repository.buq.BottomUpQuantificationRepository;
 import org.openlmis.buq.repository.buq.BottomUpQuantificationStatusChangeRepository;
 import org.openlmis.buq.service.CsvService;
-import org.openlmis.buq.service.RequestParameters;
 import org.openlmis.buq.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.buq.service.referencedata.OrderableReferenceDataService;
 import org.openlmis.buq.service.referencedata.PeriodReferenceDataService;
 import org.openlmis.buq.service.referencedata.ProgramReferenceDataService;
-import org.openlmis.buq.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.buq.service.referencedata.SupplyLineReferenceDataService;
+import org.openlmis.buq.service.referencedata.SupervisoryNodeGraph;
 import org.openlmis.buq.service.referencedata.UserReferenceDataService;
 import org.openlmis.buq.service.remark.RemarkService;
 import org.openlmis.buq.util.AuthenticationHelper;
@@ -136,10 +136,7 @@ public class BottomUpQuantificationServiceTest {
   private UserReferenceDataService userReferenceDataService;
 
   @Mock
-  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
-
-  @Mock
-  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+  private SupervisoryNodeGraph supervisoryNodeGraph;
 
   @Mock
   private BottomUpQuantificationLineItemRepository bottomUpQuantificationLineItemRepository;
@@ -178,9 +175,12 @@ public class BottomUpQuantificationServiceTest {
     UserDto userDto = new UserDto();
     userDto.setId(UUID.randomUUID());
 
-    when(facilityReferenceDataService.findOne(facilityId)).thenReturn(facilityDto);
-    when(programReferenceDataService.findOne(programId)).thenReturn(programDto);
-    when(periodReferenceDataService.findOne(processingPeriodId)).thenReturn(processingPeriodDto);
+    when(facilityReferenceDataService.findOneAsync(facilityId))
+        .thenReturn(CompletableFuture.completedFuture(facilityDto));
+    when(programReferenceDataService.findOneAsync(programId))
+        .thenReturn(CompletableFuture.completedFuture(programDto));
+    when(periodReferenceDataService.findOneAsync(processingPeriodId))
+        .thenReturn(CompletableFuture.completedFuture(processingPeriodDto));
     when(bottomUpQuantificationRepository.getRequisitionLineItemsData(
         any(UUID.class), any(UUID.class))).thenReturn(reqLineItemsData);
     when(authenticationHelper.getCurrentUser()).thenReturn(userDto);
@@ -240,7 +240,7 @@ public class BottomUpQuantificationServiceTest {
     orderables.add(new BasicOrderableDto());
     orderables.add(new BasicOrderableDto());
     when(orderableReferenceDataService
-        .findAll(any(RequestParameters.class)))
+        .findByIds(anyCollection()))
         .thenReturn(orderables);
     BottomUpQuantificationLineItem lineItem1 =
             new BottomUpQuantificationLineItemDataBuilder().build();
@@ -292,7 +292,7 @@ public class BottomUpQuantificationServiceTest {
     List<BasicOrderableDto> orderables = new ArrayList<>();
     orderables.add(new BasicOrderableDto());
     when(orderableReferenceDataService
-            .findAll(any(RequestParameters.class)))
+            .findByIds(anyCollection()))
             .thenReturn(orderables);
     bottomUpQuantificationDto.setBottomUpQuantificationLineItems(
         Collections.singletonList(lineItemDto)
@@ -318,7 +318,7 @@ public class BottomUpQuantificationServiceTest {
     final BottomUpQuantificationLineItemDto lineItemDto = BottomUpQuantificationLineItemDto
         .newInstance(lineItem);
     when(orderableReferenceDataService
-            .findAll(any(RequestParameters.class)))
+            .findByIds(anyCollection()))
             .thenThrow(ContentNotFoundMessageException.class);
     bottomUpQuantificationDto.setBottomUpQuantificationLineItems(
         Collections.singletonList(lineItemDto)
@@ -345,8 +345,10 @@ public class BottomUpQuantificationServiceTest {
 
     doThrow(ValidationMessageException.class).when(facilitySupportsProgramHelper)
         .checkIfFacilitySupportsProgram(facilityDto, programId);
-    when(facilityReferenceDataService.findOne(facilityId)).thenReturn(facilityDto);
-    when(programReferenceDataService.findOne(programId)).thenReturn(programDto);
+    when(facilityReferenceDataService.findOneAsync(facilityId))
+        .thenReturn(CompletableFuture.completedFuture(facilityDto));
+    when(programReferenceDataService.findOneAsync(programId))
+        .thenReturn(CompletableFuture.completedFuture(programDto));
 
     bottomUpQuantificationService.prepare(facilityId, programId, processingPeriodId);
 
@@ -496,14 +498,15 @@ public class BottomUpQuantificationServiceTest {
     buq.setStatus(BottomUpQuantificationStatus.DRAFT);
     when(bottomUpQuantificationLineItemRepository.saveAll(any()))
             .thenReturn(new ArrayList<>());
-    Mockito.lenient().when(supervisoryNodeReferenceDataService
+    Mockito.lenient().when(supervisoryNodeGraph
             .findSupervisoryNode(buq.getProgramId(), buq.getFacilityId()))
             .thenReturn(new SupervisoryNodeDto());
     ProcessingPeriodDto processingPeriodDto = new ProcessingPeriodDto();
     processingPeriodDto.setId(any(UUID.class));
-    when(periodReferenceDataService.findOne(buq.getProcessingPeriodId()))
-            .thenReturn(processingPeriodDto);
-    when(supplyLineReferenceDataService.search(any(UUID.class), any(UUID.class)))
+    when(periodReferenceDataService.findOneAsync(buq.getProcessingPeriodId()))
+            .thenReturn(CompletableFuture.completedFuture(processingPeriodDto));
+    when(supervisoryNodeGraph.getNode(any())).thenReturn(null);
+    when(supervisoryNodeGraph.getSupplyLines(any(UUID.class), any(UUID.class)))
             .thenReturn(Collections.emptyList());
 
     mockUpdateBottomUpQuantification(bottomUpQuantificationId, bottomUpQuantification);
@@ -0,0 +1,136 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.buq;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.openlmis.buq.CurrencyConfig.currencyCode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.joda.money.CurrencyUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.buq.builder.BottomUpQuantificationDataBuilder;
+import org.openlmis.buq.builder.BottomUpQuantificationLineItemDataBuilder;
+import org.openlmis.buq.builder.ProductGroupDataBuilder;
+import org.openlmis.buq.domain.buq.BottomUpQuantification;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+import org.openlmis.buq.dto.productgroup.ProductGroupsCostData;
+
+public class ProductGroupCostRollupTest {
+
+  private static final String MEDICINES = "Medicines";
+  private static final String OTHERS = "Others";
+  private static final String FACILITY_TYPE = "health_center";
+
+  private final ProductGroup medicines =
+      new ProductGroupDataBuilder().withName(MEDICINES).withCode("10").build();
+  private final Map<UUID, ProductGroup> groupsByOrderable = new HashMap<>();
+  private ProductGroupCostRollup rollup;
+
+  @Before
+  public void setUp() {
+    rollup = new ProductGroupCostRollup(Arrays.asList(medicines,
+        new ProductGroupDataBuilder().withName(OTHERS).withCode(null).build()),
+        CurrencyUnit.of(currencyCode), groupsByOrderable);
+  }
+
+  @Test
+  public void shouldSumCostsPerProductGroup() {
+    BottomUpQuantification buq = buq(orderable(medicines), 100, orderable(null), 20);
+
+    Map<String, String> costs = rollup.calculate(Arrays.asList(buq, buq));
+
+    assertThat(costs, hasEntry(MEDICINES, "200.00 " + currencyCode));
+    assertThat(costs, hasEntry(OTHERS, "40.00 " + currencyCode));
+  }
+
+  @Test
+  public void shouldAccumulateCostsPerZoneAndFacilityType() {
+    UUID zoneId = UUID.randomUUID();
+    UUID medicine = orderable(medicines);
+    BottomUpQuantification first = buq(medicine, 100, medicine, 50);
+    BottomUpQuantification second = buq(medicine, 10, medicine, 5);
+
+    rollup.addToZone(zoneId, FACILITY_TYPE, first);
+    rollup.addToZone(zoneId, FACILITY_TYPE, second);
+    rollup.addToZone(zoneId, "hospital", second);
+
+    List<ProductGroupsCostData> costData = rollup.getCostData();
+
+    assertThat(costData, hasSize(2));
+    assertThat(costData.get(0).getDataSourceId(), is(zoneId));
+    assertThat(costData.get(0).getFacilityType(), is(FACILITY_TYPE));
+    assertThat(costData.get(0).getBottomUpQuantificationIds(),
+        contains(first.getId(), second.getId()));
+    assertThat(costData.get(0).getCalculatedGroupsCosts(),
+        hasEntry(MEDICINES, "165.00 " + currencyCode));
+    assertThat(costData.get(1).getCalculatedGroupsCosts(),
+        hasEntry(MEDICINES, "15.00 " + currencyCode));
+  }
+
+  @Test
+  public void shouldKeepFacilityCostsSeparate() {
+    UUID medicine = orderable(medicines);
+    BottomUpQuantification buq = buq(medicine, 100, medicine, 0);
+
+    rollup.addAsFacility(buq);
+
+    ProductGroupsCostData costData = rollup.getCostData().get(0);
+    assertThat(costData.getDataSourceId(), is(buq.getFacilityId()));
+    assertThat(costData.isDataSourceFacility(), is(true));
+    assertThat(costData.getCalculatedGroupsCosts(), hasEntry(OTHERS, "0.00 " + currencyCode));
+  }
+
+  @Test
+  public void shouldSkipProductsOfUnknownGroupsWithoutGroupWithoutCode() {
+    rollup = new ProductGroupCostRollup(Collections.singletonList(medicines),
+        CurrencyUnit.of(currencyCode), groupsByOrderable);
+    BottomUpQuantification buq = buq(orderable(medicines), 100, orderable(null), 20);
+
+    Map<String, String> costs = rollup.calculate(Collections.singletonList(buq));
+
+    assertThat(costs.size(), is(1));
+    assertThat(costs, hasEntry(MEDICINES, "100.00 " + currencyCode));
+  }
+
+  private UUID orderable(ProductGroup group) {
+    UUID orderableId = UUID.randomUUID();
+    if (null != group) {
+      groupsByOrderable.put(orderableId, group);
+    }
+    return orderableId;
+  }
+
+  private BottomUpQuantification buq(UUID firstOrderableId, double firstCost,
+      UUID secondOrderableId, double secondCost) {
+    return new BottomUpQuantificationDataBuilder()
+        .addLineItem(new BottomUpQuantificationLineItemDataBuilder()
+            .withOrderableId(firstOrderableId).withTotalCost(firstCost).build())
+        .addLineItem(new BottomUpQuantificationLineItemDataBuilder()
+            .withOrderableId(secondOrderableId).withTotalCost(secondCost).build())
+        .build();
+  }
+
+}
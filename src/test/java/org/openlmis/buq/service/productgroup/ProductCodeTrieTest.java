@@ -0,0 +1,62 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.productgroup;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.buq.builder.ProductGroupDataBuilder;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+
+public class ProductCodeTrieTest {
+
+  private final ProductGroup medicines = group("10");
+  private final ProductGroup vaccines = group("105");
+  private final ProductGroup supplies = group("2");
+
+  private final ProductCodeTrie trie = new ProductCodeTrie();
+
+  @Before
+  public void setUp() {
+    trie.put(medicines);
+    trie.put(vaccines);
+    trie.put(supplies);
+    trie.put(group(null));
+  }
+
+  @Test
+  public void shouldMatchLongestGroupCode() {
+    assertThat(trie.match("10001"), is(medicines));
+    assertThat(trie.match("10501"), is(vaccines));
+    assertThat(trie.match("105"), is(vaccines));
+    assertThat(trie.match("20001"), is(supplies));
+  }
+
+  @Test
+  public void shouldNotMatchProductsWithoutGroup() {
+    assertThat(trie.match("30001"), is(nullValue()));
+    assertThat(trie.match("1"), is(nullValue()));
+    assertThat(trie.match(null), is(nullValue()));
+  }
+
+  private static ProductGroup group(String code) {
+    return new ProductGroupDataBuilder().withName("Group " + code).withCode(code).build();
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.productgroup;
+
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.buq.builder.OrderableDtoDataBuilder;
+import org.openlmis.buq.builder.ProductGroupDataBuilder;
+import org.openlmis.buq.domain.productgroup.ProductGroup;
+import org.openlmis.buq.dto.referencedata.BasicOrderableDto;
+import org.openlmis.buq.repository.productgroup.ProductGroupRepository;
+import org.openlmis.buq.service.referencedata.OrderableReferenceDataService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductGroupResolverTest {
+
+  private static final String TTL_PROPERTY = "referencedata.cache.orderableProductCodes.ttl";
+  private static final String GROUP_TTL_PROPERTY = "productGroups.cache.ttl";
+
+  @Mock
+  private OrderableReferenceDataService orderableReferenceDataService;
+
+  @Mock
+  private ProductGroupRepository productGroupRepository;
+
+  @InjectMocks
+  private ProductGroupResolver resolver;
+
+  private final ProductGroup medicines =
+      new ProductGroupDataBuilder().withName("Medicines").withCode("10").build();
+  private final BasicOrderableDto medicine = orderable("10001");
+  private final BasicOrderableDto other = orderable("99001");
+
+  @Before
+  public void setUp() {
+    resolver.setProductCodeCache(new MockEnvironment().withProperty(TTL_PROPERTY, "60000"));
+    when(productGroupRepository.findAll()).thenReturn(Collections.singletonList(medicines));
+  }
+
+  @Test
+  public void shouldResolveGroupsOfOrderablesWithCachedProductCodes() {
+    when(orderableReferenceDataService.findByIds(anyCollection()))
+        .thenReturn(Arrays.asList(medicine, other));
+
+    resolver.resolve(Sets.newHashSet(medicine.getId(), other.getId()));
+
+    assertThat(resolver.resolve(Sets.newHashSet(medicine.getId(), other.getId())),
+        hasEntry(medicine.getId(), medicines));
+    assertThat(resolver.resolve(Collections.singleton(other.getId())), aMapWithSize(0));
+    verify(orderableReferenceDataService, times(1)).findByIds(anyCollection());
+    verify(productGroupRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void shouldReadProductGroupsAgainWhenInvalidated() {
+    resolver.getProductGroups();
+    resolver.invalidate();
+    resolver.getProductGroups();
+
+    verify(productGroupRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void shouldNotKeepProductGroupsReadWhileTheyWereInvalidated() {
+    when(productGroupRepository.findAll()).thenAnswer(invocation -> {
+      resolver.invalidate();
+      return Collections.singletonList(medicines);
+    }).thenReturn(Collections.singletonList(medicines));
+
+    resolver.getProductGroups();
+    resolver.getProductGroups();
+    resolver.getProductGroups();
+
+    verify(productGroupRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void shouldReadProductGroupsAgainAfterTtl() {
+    AtomicLong nanos = new AtomicLong();
+    ReflectionTestUtils.setField(resolver, "ticker", (Ticker) nanos::get);
+    resolver.setGroupTtl(new MockEnvironment().withProperty(GROUP_TTL_PROPERTY, "1000"));
+
+    resolver.getProductGroups();
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    resolver.getProductGroups();
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    resolver.getProductGroups();
+
+    verify(productGroupRepository, times(2)).findAll();
+  }
+
+  private static BasicOrderableDto orderable(String productCode) {
+    BasicOrderableDto orderable = new OrderableDtoDataBuilder().buildAsDto();
+    orderable.setProductCode(productCode);
+    return orderable;
+  }
+
+}
@@ -15,14 +15,42 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
 import org.openlmis.buq.service.BaseCommunicationService;
 import org.openlmis.buq.service.BaseCommunicationServiceTest;
+import org.openlmis.buq.service.DataRetrievalException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
 
 public abstract class BaseReferenceDataServiceTest<T> extends BaseCommunicationServiceTest<T> {
 
+  private static final long TTL = 60000;
+  private static final long MAX_STALE = 60000;
+
   protected final String serviceUrl = "http://localhost";
 
+  private final AtomicLong nanos = new AtomicLong();
+
   @Override
   protected BaseReferenceDataService<T> prepareService() {
     BaseCommunicationService<T> service = super.prepareService();
@@ -32,4 +60,158 @@ public abstract class BaseReferenceDataServiceTest<T> extends BaseCommunicationS
     return (BaseReferenceDataService<T>) service;
   }
 
+  @Test
+  public void shouldReturnCachedObjectIfCacheIsEnabled() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    MeterRegistry registry = new SimpleMeterRegistry();
+    enableCache(service, registry);
+    UUID id = UUID.randomUUID();
+
+    // when
+    T instance = mockResponseEntityAndGetDto();
+    T first = service.findOne(id);
+    T second = service.findOne(id);
+
+    // then
+    assertThat(first, is(instance));
+    assertThat(second, is(instance));
+
+    verify(restTemplate, times(1)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(Class.class));
+    assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count(),
+        is(1.0));
+    assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count(),
+        is(1.0));
+  }
+
+  @Test
+  public void shouldNotCacheMissingObjects() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    enableCache(service, new SimpleMeterRegistry());
+    UUID id = UUID.randomUUID();
+
+    // when
+    mockRequestFail(HttpStatus.NOT_FOUND);
+    T first = service.findOne(id);
+    T second = service.findOne(id);
+
+    // then
+    assertThat(first, is(nullValue()));
+    assertThat(second, is(nullValue()));
+
+    verify(restTemplate, times(2)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(Class.class));
+  }
+
+  @Test
+  public void shouldNotCacheObjectsIfCacheIsNotConfigured() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    service.setCache(new MockEnvironment(), new SimpleMeterRegistry());
+    UUID id = UUID.randomUUID();
+
+    // when
+    mockResponseEntityAndGetDto();
+    service.findOne(id);
+    service.findOne(id);
+
+    // then
+    verify(restTemplate, times(2)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(Class.class));
+  }
+
+  @Test
+  public void shouldRefreshObjectOlderThanTtl() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    enableCacheWithStaleness(service);
+    UUID id = UUID.randomUUID();
+    T instance = generateInstance();
+    T refreshed = generateInstance();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        any(Class.class)))
+        .thenReturn(new ResponseEntity<>(instance, HttpStatus.OK))
+        .thenReturn(new ResponseEntity<>(refreshed, HttpStatus.OK));
+
+    // when
+    service.findOne(id);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL + 1));
+    T stale = service.findOne(id);
+    T fresh = service.findOne(id);
+
+    // then
+    assertThat(stale, is(instance));
+    assertThat(fresh, is(refreshed));
+
+    verify(restTemplate, times(2)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(Class.class));
+  }
+
+  @Test
+  public void shouldServeStaleObjectIfServiceIsUnavailable() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    enableCacheWithStaleness(service);
+    UUID id = UUID.randomUUID();
+    T instance = generateInstance();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        any(Class.class)))
+        .thenReturn(new ResponseEntity<>(instance, HttpStatus.OK))
+        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+    // when
+    service.findOne(id);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL + 1));
+    T first = service.findOne(id);
+    T second = service.findOne(id);
+
+    // then
+    assertThat(first, is(instance));
+    assertThat(second, is(instance));
+  }
+
+  @Test
+  public void shouldNotServeObjectOlderThanAllowedStaleness() {
+    // given
+    BaseReferenceDataService<T> service = prepareService();
+    enableCacheWithStaleness(service);
+    UUID id = UUID.randomUUID();
+
+    when(restTemplate.exchange(any(URI.class), any(HttpMethod.class), any(HttpEntity.class),
+        any(Class.class)))
+        .thenReturn(new ResponseEntity<>(generateInstance(), HttpStatus.OK))
+        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+    // when
+    service.findOne(id);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL + MAX_STALE + 1));
+
+    expectedException.expect(DataRetrievalException.class);
+    service.findOne(id);
+  }
+
+  private void enableCache(BaseReferenceDataService<T> service, MeterRegistry registry) {
+    String prefix = "referencedata.cache." + service.getCacheName();
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty(prefix + ".ttl", "60000")
+        .withProperty(prefix + ".maxSize", "10");
+
+    service.setCache(environment, registry);
+  }
+
+  private void enableCacheWithStaleness(BaseReferenceDataService<T> service) {
+    String prefix = "referencedata.cache." + service.getCacheName();
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty(prefix + ".ttl", String.valueOf(TTL))
+        .withProperty(prefix + ".maxSize", "10")
+        .withProperty("referencedata.cache.maxStale", String.valueOf(MAX_STALE));
+
+    ReflectionTestUtils.setField(service, "ticker", (Ticker) nanos::get);
+    service.setCache(environment, new SimpleMeterRegistry());
+  }
+
 }
@@ -16,13 +16,33 @@
 package org.openlmis.buq.service.referencedata;
 
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.buq.builder.OrderableDtoDataBuilder;
 import org.openlmis.buq.dto.referencedata.BasicOrderableDto;
+import org.openlmis.buq.util.DynamicPageTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
 
 public class OrderableReferenceDataServiceTest
     extends BaseReferenceDataServiceTest<BasicOrderableDto> {
@@ -44,6 +64,7 @@ public class OrderableReferenceDataServiceTest
   public void setUp() {
     super.setUp();
     service = (OrderableReferenceDataService) prepareService();
+    ReflectionTestUtils.setField(service, "bulkSearchEnabled", true);
   }
 
   @Test
@@ -62,4 +83,114 @@ public class OrderableReferenceDataServiceTest
         .isUriStartsWith(service.getServiceUrl() + service.getUrl());
   }
 
+  @Test
+  public void shouldFindOrderablesByIdsInSingleSearchRequest() {
+    // given
+    Set<UUID> ids = generateIds(200);
+
+    // when
+    BasicOrderableDto dto = mockPageResponseEntityAndGetDto();
+    List<BasicOrderableDto> found = service.findByIds(ids);
+
+    // then
+    assertThat(found, hasItem(dto));
+
+    verifyPageRequest()
+        .isPostRequest()
+        .hasAuthHeader()
+        .isUriStartsWith(service.getServiceUrl() + service.getUrl() + "search")
+        .hasQueryParameter("size", ids.size())
+        .hasQueryParameter("id", null);
+
+    assertThat((Map<String, Object>) entityCaptor.getValue().getBody(), hasKey("identities"));
+    verify(restTemplate, times(1)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
+
+  @Test
+  public void shouldUseQueryParametersForSmallIdSets() {
+    // given
+    Set<UUID> ids = generateIds(2);
+
+    // when
+    BasicOrderableDto dto = mockPageResponseEntityAndGetDto();
+    List<BasicOrderableDto> found = service.findByIds(ids);
+
+    // then
+    assertThat(found, hasItem(dto));
+
+    verifyPageRequest()
+        .isGetRequest()
+        .hasEmptyBody()
+        .isUriStartsWith(service.getServiceUrl() + service.getUrl());
+  }
+
+  @Test
+  public void shouldFallBackToSplitRequestsIfSearchIsNotSupported() {
+    // given
+    Set<UUID> ids = generateIds(200);
+
+    BasicOrderableDto dto = mockPageResponseEntityAndGetDto();
+    when(restTemplate.exchange(any(URI.class), eq(HttpMethod.POST), any(HttpEntity.class),
+        any(DynamicPageTypeReference.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.METHOD_NOT_ALLOWED));
+
+    // when
+    List<BasicOrderableDto> first = service.findByIds(ids);
+    List<BasicOrderableDto> second = service.findByIds(ids);
+
+    // then
+    assertThat(first, hasItem(dto));
+    assertThat(second, hasItem(dto));
+
+    verify(restTemplate, times(1)).exchange(any(URI.class), eq(HttpMethod.POST),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+    verify(restTemplate, atLeast(4)).exchange(any(URI.class), eq(HttpMethod.GET),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
+
+  @Test
+  public void shouldKeepUsingSearchRequestAfterBadRequest() {
+    // given
+    Set<UUID> ids = generateIds(200);
+
+    BasicOrderableDto dto = mockPageResponseEntityAndGetDto();
+    when(restTemplate.exchange(any(URI.class), eq(HttpMethod.POST), any(HttpEntity.class),
+        any(DynamicPageTypeReference.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+    // when
+    List<BasicOrderableDto> first = service.findByIds(ids);
+    List<BasicOrderableDto> second = service.findByIds(ids);
+
+    // then
+    assertThat(first, hasItem(dto));
+    assertThat(second, hasItem(dto));
+
+    verify(restTemplate, times(2)).exchange(any(URI.class), eq(HttpMethod.POST),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
+
+  @Test
+  public void shouldNotUseSearchRequestIfBulkSearchIsDisabled() {
+    // given
+    ReflectionTestUtils.setField(service, "bulkSearchEnabled", false);
+    Set<UUID> ids = generateIds(200);
+
+    // when
+    mockPageResponseEntityAndGetDto();
+    service.findByIds(ids);
+
+    // then
+    verify(restTemplate, never()).exchange(any(URI.class), eq(HttpMethod.POST),
+        any(HttpEntity.class), any(DynamicPageTypeReference.class));
+  }
+
+  private Set<UUID> generateIds(int count) {
+    return Stream
+        .generate(UUID::randomUUID)
+        .limit(count)
+        .collect(Collectors.toSet());
+  }
+
 }
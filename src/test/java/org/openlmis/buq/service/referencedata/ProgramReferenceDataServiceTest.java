@@ -15,12 +15,23 @@
 
 package org.openlmis.buq.service.referencedata;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import org.apache.commons.lang.RandomStringUtils;
@@ -29,6 +40,9 @@ import org.junit.Test;
 import org.openlmis.buq.builder.ProgramDtoDataBuilder;
 import org.openlmis.buq.dto.referencedata.ProgramDto;
 import org.openlmis.buq.service.BaseCommunicationService;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
 
 public class ProgramReferenceDataServiceTest extends BaseReferenceDataServiceTest<ProgramDto> {
 
@@ -71,6 +85,63 @@ public class ProgramReferenceDataServiceTest extends BaseReferenceDataServiceTes
         .hasQueryParameter("name", programName);
   }
 
+  @Test
+  public void shouldLoadAllProgramsIntoCache() {
+    // given
+    service.setCache(new MockEnvironment()
+        .withProperty("referencedata.cache.programs.ttl", "60000")
+        .withProperty("referencedata.cache.programs.maxSize", "10"), new SimpleMeterRegistry());
+
+    // when
+    ProgramDto dto = mockArrayResponseEntityAndGetDto();
+    int loaded = service.warmUp();
+    ProgramDto found = service.findOne(dto.getId());
+
+    // then
+    assertThat(loaded, is(1));
+    assertThat(found, is(dto));
+    assertThat(service.getCachedObjects(), contains(dto));
+    verify(restTemplate, never()).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), eq(ProgramDto.class));
+  }
+
+  @Test
+  public void shouldRestoreProgramsFromSnapshot() {
+    // given
+    service.setCache(new MockEnvironment()
+        .withProperty("referencedata.cache.programs.ttl", "60000")
+        .withProperty("referencedata.cache.programs.maxSize", "10"), new SimpleMeterRegistry());
+    ObjectMapper objectMapper = new ObjectMapper();
+    ProgramDto dto = generateInstance();
+    disableAuthCheck();
+
+    // when
+    int restored = service.restore(objectMapper,
+        objectMapper.valueToTree(Collections.singletonList(dto)), 1000);
+
+    // then
+    assertThat(restored, is(1));
+    assertThat(service.isWarmable(), is(true));
+    assertThat(service.getCachedObjects().get(0).getId(), is(dto.getId()));
+  }
+
+  @Test
+  public void shouldNotKeepProgramsFromSnapshotOlderThanTtl() {
+    // given
+    service.setCache(new MockEnvironment()
+        .withProperty("referencedata.cache.programs.ttl", "60000")
+        .withProperty("referencedata.cache.programs.maxSize", "10"), new SimpleMeterRegistry());
+    ObjectMapper objectMapper = new ObjectMapper();
+    disableAuthCheck();
+
+    // when
+    service.restore(objectMapper,
+        objectMapper.valueToTree(Collections.singletonList(generateInstance())), 60000);
+
+    // then
+    assertThat(service.getCachedObjects(), is(empty()));
+  }
+
   @Test
   public void shouldFindProgramsByIds() {
     // given
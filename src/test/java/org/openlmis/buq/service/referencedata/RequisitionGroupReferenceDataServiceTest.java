@@ -0,0 +1,96 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.referencedata;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.Sets;
+import java.net.URI;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.buq.builder.FacilityDtoDataBuilder;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+import org.openlmis.buq.dto.referencedata.RequisitionGroupDto;
+import org.openlmis.buq.dto.referencedata.SupervisoryNodeDto;
+import org.openlmis.buq.service.BaseCommunicationService;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+
+public class RequisitionGroupReferenceDataServiceTest
+    extends BaseReferenceDataServiceTest<RequisitionGroupDto> {
+
+  private RequisitionGroupReferenceDataService service;
+
+  private final FacilityDto facility = new FacilityDtoDataBuilder().buildAsDto();
+
+  @Override
+  protected RequisitionGroupDto generateInstance() {
+    SupervisoryNodeDto supervisoryNode = new SupervisoryNodeDto();
+    supervisoryNode.setId(UUID.randomUUID());
+
+    RequisitionGroupDto group = new RequisitionGroupDto();
+    group.setId(UUID.randomUUID());
+    group.setSupervisoryNode(supervisoryNode);
+    group.setMemberFacilities(Sets.newHashSet(facility));
+
+    return group;
+  }
+
+  @Override
+  protected BaseCommunicationService<RequisitionGroupDto> getService() {
+    return new RequisitionGroupReferenceDataService();
+  }
+
+  @Override
+  @Before
+  public void setUp() {
+    super.setUp();
+    service = (RequisitionGroupReferenceDataService) prepareService();
+  }
+
+  @Test
+  public void shouldFindSupervisoryNodesOfFacility() {
+    RequisitionGroupDto group = mockArrayResponseEntityAndGetDto();
+
+    assertThat(service.getSupervisoryNodeIds(facility.getId()),
+        contains(group.getSupervisoryNode().getId()));
+    assertThat(service.getSupervisoryNodeIds(UUID.randomUUID()), is(empty()));
+  }
+
+  @Test
+  public void shouldBuildSupervisoryNodeIndexOnce() {
+    service.setSupervisoryNodeIndex(new MockEnvironment()
+        .withProperty("referencedata.cache.supervisoryNodesByFacility.ttl", "60000"));
+    RequisitionGroupDto group = mockArrayResponseEntityAndGetDto();
+
+    service.getSupervisoryNodeIds(facility.getId());
+    assertThat(service.getSupervisoryNodeIds(facility.getId()),
+        contains(group.getSupervisoryNode().getId()));
+
+    verify(restTemplate, times(1)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), eq(RequisitionGroupDto[].class));
+  }
+
+}
@@ -18,16 +18,33 @@ package org.openlmis.buq.service.referencedata;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
-
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import org.apache.commons.lang.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.buq.builder.RightDtoDataBuilder;
 import org.openlmis.buq.dto.referencedata.RightDto;
 import org.openlmis.buq.service.BaseCommunicationService;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class RightReferenceDataServiceTest extends BaseReferenceDataServiceTest<RightDto> {
 
+  private static final String NAME = "name";
+  private static final long CATALOG_TTL = 60000;
+  private static final long NOW = 1600000000000L;
+
   private RightReferenceDataService service;
 
   @Override
@@ -63,7 +80,7 @@ public class RightReferenceDataServiceTest extends BaseReferenceDataServiceTest<
         .isGetRequest()
         .hasAuthHeader()
         .hasEmptyBody()
-        .hasQueryParameter("name", name);
+        .hasQueryParameter(NAME, name);
   }
 
   @Test
@@ -82,7 +99,72 @@ public class RightReferenceDataServiceTest extends BaseReferenceDataServiceTest<
         .isGetRequest()
         .hasAuthHeader()
         .hasEmptyBody()
-        .hasQueryParameter("name", name);
+        .hasQueryParameter(NAME, name);
+  }
+
+  @Test
+  public void shouldFindRightInCatalog() {
+    enableCatalog();
+    RightDto dto = mockArrayResponseEntityAndGetDto();
+
+    assertThat(service.findRight(dto.getName()), is(dto));
+    assertThat(service.findRight(dto.getName()), is(dto));
+
+    verifyRightRequests(1);
+    verifyArrayRequest().hasQueryParameter(NAME, null);
+  }
+
+  @Test
+  public void shouldSearchRightMissingFromCatalog() {
+    enableCatalog();
+    RightDto dto = mockArrayResponseEntityAndGetDto();
+    String name = RandomStringUtils.randomAlphanumeric(10);
+
+    assertThat(service.findRight(name), is(dto));
+    assertThat(service.findRight(name), is(dto));
+
+    verifyRightRequests(2);
+    verifyArrayRequest().hasQueryParameter(NAME, name);
+  }
+
+  @Test
+  public void shouldReloadCatalogAfterTtl() {
+    enableCatalog();
+    RightDto dto = mockArrayResponseEntityAndGetDto();
+    service.findRight(dto.getName());
+
+    setTime(NOW + CATALOG_TTL);
+    service.findRight(dto.getName());
+
+    verifyRightRequests(2);
+  }
+
+  @Test
+  public void shouldReloadCatalogRestoredFromSnapshotOlderThanTtl() {
+    enableCatalog();
+    RightDto dto = mockArrayResponseEntityAndGetDto();
+    ObjectMapper objectMapper = new ObjectMapper();
+    service.restore(objectMapper, objectMapper.valueToTree(Collections.singletonList(dto)),
+        CATALOG_TTL);
+
+    assertThat(service.findRight(dto.getName()), is(dto));
+
+    verifyRightRequests(1);
+  }
+
+  private void enableCatalog() {
+    ReflectionTestUtils.setField(service, "catalogTtl", CATALOG_TTL);
+    setTime(NOW);
+  }
+
+  private void setTime(long millis) {
+    ReflectionTestUtils.setField(service, "clock",
+        Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+  }
+
+  private void verifyRightRequests(int count) {
+    verify(restTemplate, times(count)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), eq(RightDto[].class));
   }
 
 }
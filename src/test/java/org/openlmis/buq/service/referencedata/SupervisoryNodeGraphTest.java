@@ -0,0 +1,185 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.referencedata;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.buq.builder.FacilityDtoDataBuilder;
+import org.openlmis.buq.builder.ProgramDtoDataBuilder;
+import org.openlmis.buq.dto.referencedata.FacilityDto;
+import org.openlmis.buq.dto.referencedata.ObjectReferenceDto;
+import org.openlmis.buq.dto.referencedata.ProgramDto;
+import org.openlmis.buq.dto.referencedata.RequisitionGroupDto;
+import org.openlmis.buq.dto.referencedata.RequisitionGroupProgramScheduleDto;
+import org.openlmis.buq.dto.referencedata.SupervisoryNodeDto;
+import org.openlmis.buq.dto.referencedata.SupplyLineDto;
+import org.openlmis.buq.service.RequestParameters;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.env.MockEnvironment;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SupervisoryNodeGraphTest {
+
+  private static final String TTL_PROPERTY = "referencedata.cache.supervisoryNodeGraph.ttl";
+
+  @Mock
+  private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
+
+  @Mock
+  private SupplyLineReferenceDataService supplyLineReferenceDataService;
+
+  @Mock
+  private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
+
+  @InjectMocks
+  private SupervisoryNodeGraph graph;
+
+  private final FacilityDto facility = new FacilityDtoDataBuilder().buildAsDto();
+  private final ProgramDto program = new ProgramDtoDataBuilder().buildAsDto();
+  private final SupervisoryNodeDto parent = new SupervisoryNodeDto();
+  private final SupervisoryNodeDto node = new SupervisoryNodeDto();
+  private final SupplyLineDto supplyLine = new SupplyLineDto();
+  private RequisitionGroupDto group;
+
+  @Before
+  public void setUp() {
+    parent.setId(UUID.randomUUID());
+    node.setId(UUID.randomUUID());
+    node.setParentNode(new ObjectReferenceDto(parent.getId()));
+
+    supplyLine.setId(UUID.randomUUID());
+    supplyLine.setProgram(program);
+    supplyLine.setSupervisoryNode(parent);
+
+    group = new RequisitionGroupDto();
+    group.setId(UUID.randomUUID());
+    group.setSupervisoryNode(node);
+    group.setMemberFacilities(Sets.newHashSet(facility));
+    group.setRequisitionGroupProgramSchedules(Sets.newHashSet(
+        new RequisitionGroupProgramScheduleDto(new ObjectReferenceDto(program.getId()))));
+
+    graph.setGraphCache(new MockEnvironment().withProperty(TTL_PROPERTY, "60000"),
+        Runnable::run);
+  }
+
+  @Test
+  public void shouldAnswerRoutingFromGraph() {
+    mockGraph(new PageImpl<>(Collections.singletonList(supplyLine)));
+
+    assertThat(graph.findSupervisoryNode(program.getId(), facility.getId()), is(node));
+    assertThat(graph.getNode(node.getParentNodeId()), is(parent));
+    assertThat(graph.getSupplyLines(program.getId(), parent.getId()), contains(supplyLine));
+
+    verify(supervisoryNodeReferenceDataService, times(1)).getPage(any(RequestParameters.class));
+    verify(supervisoryNodeReferenceDataService, never()).findOne(any(UUID.class));
+    verify(supervisoryNodeReferenceDataService, never()).findSupervisoryNode(any(), any());
+    verify(supplyLineReferenceDataService, never()).search(any(UUID.class), any(UUID.class));
+  }
+
+  @Test
+  public void shouldSearchSupplyLinesMissingFromGraph() {
+    mockGraph(new PageImpl<>(Collections.singletonList(supplyLine)));
+    SupplyLineDto added = new SupplyLineDto();
+    added.setId(UUID.randomUUID());
+    when(supplyLineReferenceDataService.search(program.getId(), node.getId()))
+        .thenReturn(Collections.singletonList(added));
+
+    assertThat(graph.getSupplyLines(program.getId(), node.getId()), contains(added));
+  }
+
+  @Test
+  public void shouldFindNodeOfFacilityInSeveralGroupsInReferenceData() {
+    SupervisoryNodeDto other = new SupervisoryNodeDto();
+    other.setId(UUID.randomUUID());
+    RequisitionGroupDto otherGroup = new RequisitionGroupDto();
+    otherGroup.setId(UUID.randomUUID());
+    otherGroup.setSupervisoryNode(other);
+    otherGroup.setMemberFacilities(Sets.newHashSet(facility));
+    otherGroup.setRequisitionGroupProgramSchedules(group.getRequisitionGroupProgramSchedules());
+
+    mockGraph(new PageImpl<>(Collections.singletonList(supplyLine)));
+    when(requisitionGroupReferenceDataService.findAll())
+        .thenReturn(Arrays.asList(group, otherGroup));
+    when(supervisoryNodeReferenceDataService.findSupervisoryNode(program.getId(),
+        facility.getId())).thenReturn(node);
+
+    assertThat(graph.findSupervisoryNode(program.getId(), facility.getId()), is(node));
+
+    verify(supervisoryNodeReferenceDataService, times(1))
+        .findSupervisoryNode(program.getId(), facility.getId());
+  }
+
+  @Test
+  public void shouldAddMissingNodeToGraph() {
+    mockGraph(new PageImpl<>(Collections.singletonList(supplyLine)));
+    SupervisoryNodeDto added = new SupervisoryNodeDto();
+    added.setId(UUID.randomUUID());
+    when(supervisoryNodeReferenceDataService.findOne(added.getId())).thenReturn(added);
+
+    assertThat(graph.getNode(added.getId()), is(added));
+    assertThat(graph.getNode(added.getId()), is(added));
+
+    verify(supervisoryNodeReferenceDataService, times(1)).findOne(added.getId());
+  }
+
+  @Test
+  public void shouldSearchSupplyLinesWhenGraphHasOnlySomeOfThem() {
+    mockGraph(new PageImpl<>(Collections.singletonList(supplyLine), PageRequest.of(0, 1), 2));
+    when(supplyLineReferenceDataService.search(program.getId(), node.getId()))
+        .thenReturn(Collections.singletonList(supplyLine));
+
+    assertThat(graph.getSupplyLines(program.getId(), node.getId()), contains(supplyLine));
+  }
+
+  @Test
+  public void shouldCallReferenceDataWithoutGraph() {
+    graph.setGraphCache(new MockEnvironment(), Runnable::run);
+    when(supervisoryNodeReferenceDataService.findOne(node.getId())).thenReturn(node);
+
+    assertThat(graph.getNode(node.getId()), is(node));
+    assertThat(graph.getNode(null), is(nullValue()));
+  }
+
+  private void mockGraph(Page<SupplyLineDto> supplyLines) {
+    when(supervisoryNodeReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenReturn(new PageImpl<>(Arrays.asList(node, parent)));
+    when(supplyLineReferenceDataService.getPage(any(RequestParameters.class)))
+        .thenReturn(supplyLines);
+    when(requisitionGroupReferenceDataService.findAll())
+        .thenReturn(Collections.singletonList(group));
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.referencedata;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.openlmis.buq.builder.RightDtoDataBuilder;
+import org.openlmis.buq.dto.referencedata.DetailedRoleAssignmentDto;
+import org.openlmis.buq.dto.referencedata.RightDto;
+import org.openlmis.buq.dto.referencedata.RoleDto;
+import org.openlmis.buq.service.BaseCommunicationService;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UserRoleAssignmentsReferenceDataServiceTest
+    extends BaseReferenceDataServiceTest<DetailedRoleAssignmentDto> {
+
+  private final RightDto right = new RightDtoDataBuilder().buildAsDto();
+
+  private final UUID supervisoryNodeId = UUID.randomUUID();
+
+  @Mock
+  private RequisitionGroupReferenceDataService requisitionGroupReferenceDataService;
+
+  private UserRoleAssignmentsReferenceDataService service;
+
+  @Override
+  protected DetailedRoleAssignmentDto generateInstance() {
+    RoleDto role = new RoleDto();
+    role.setRights(Sets.newHashSet(right));
+
+    DetailedRoleAssignmentDto roleAssignment = new DetailedRoleAssignmentDto();
+    roleAssignment.setRole(role);
+    roleAssignment.setProgramId(UUID.randomUUID());
+    roleAssignment.setSupervisoryNodeId(supervisoryNodeId);
+
+    return roleAssignment;
+  }
+
+  @Override
+  protected BaseCommunicationService<DetailedRoleAssignmentDto> getService() {
+    return new UserRoleAssignmentsReferenceDataService();
+  }
+
+  @Override
+  @Before
+  public void setUp() {
+    super.setUp();
+    service = (UserRoleAssignmentsReferenceDataService) prepareService();
+    ReflectionTestUtils.setField(service, "requisitionGroupReferenceDataService",
+        requisitionGroupReferenceDataService);
+  }
+
+  @Test
+  public void shouldFetchRoleAssignmentsOnceWithinTtl() {
+    service.setRoleAssignmentsCache(new MockEnvironment()
+        .withProperty("referencedata.cache.roleAssignments.ttl", "60000")
+        .withProperty("referencedata.cache.roleAssignments.maxSize", "10"),
+        new SimpleMeterRegistry());
+    DetailedRoleAssignmentDto roleAssignment = mockArrayResponseEntityAndGetDto();
+    UUID userId = UUID.randomUUID();
+
+    service.getRoleAssignments(userId);
+    assertThat(service.getRoleAssignments(userId), contains(roleAssignment));
+
+    verify(restTemplate, times(1)).exchange(any(URI.class), any(HttpMethod.class),
+        any(HttpEntity.class), eq(DetailedRoleAssignmentDto[].class));
+  }
+
+  @Test
+  public void shouldCheckSupervisionRightWithSupervisoryNodesOfFacility() {
+    DetailedRoleAssignmentDto roleAssignment = mockArrayResponseEntityAndGetDto();
+    UUID facilityId = UUID.randomUUID();
+    when(requisitionGroupReferenceDataService.getSupervisoryNodeIds(facilityId))
+        .thenReturn(Collections.singleton(supervisoryNodeId));
+
+    assertTrue(service.hasSupervisionRight(right, UUID.randomUUID(),
+        roleAssignment.getProgramId(), facilityId, supervisoryNodeId));
+  }
+
+  @Test
+  public void shouldNotFindSupervisionRightForFacilityOutsideOfSupervisoryNodes() {
+    DetailedRoleAssignmentDto roleAssignment = mockArrayResponseEntityAndGetDto();
+    UUID facilityId = UUID.randomUUID();
+    when(requisitionGroupReferenceDataService.getSupervisoryNodeIds(facilityId))
+        .thenReturn(Collections.emptySet());
+
+    assertFalse(service.hasSupervisionRight(right, UUID.randomUUID(),
+        roleAssignment.getProgramId(), facilityId, supervisoryNodeId));
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.role;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.buq.service.ServiceResponse;
+import org.openlmis.buq.service.referencedata.UserReferenceDataService;
+import org.springframework.http.HttpHeaders;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PermissionStringsTest {
+
+  private static final String ETAG = "\"1\"";
+  private static final String RIGHT = "PREPARE_BUQ";
+
+  @Mock
+  private UserReferenceDataService userReferenceDataService;
+
+  @InjectMocks
+  private PermissionStrings permissionStrings;
+
+  private final UUID userId = UUID.randomUUID();
+
+  @Test
+  public void shouldIndexPermissionStrings() {
+    when(userReferenceDataService.getPermissionStrings(userId, null))
+        .thenReturn(new ServiceResponse<>(Collections.singletonList(RIGHT), headers(), true));
+
+    UserPermissions permissions = permissionStrings.forUser(userId).getPermissions();
+
+    assertTrue(permissions.hasRight(RIGHT, null, null));
+  }
+
+  @Test
+  public void shouldKeepIndexIfPermissionStringsHaveNotChanged() {
+    when(userReferenceDataService.getPermissionStrings(userId, null))
+        .thenReturn(new ServiceResponse<>(Collections.singletonList(RIGHT), headers(), true));
+    when(userReferenceDataService.getPermissionStrings(userId, ETAG))
+        .thenReturn(new ServiceResponse<>(null, headers(), false));
+
+    PermissionStrings.Handler handler = permissionStrings.forUser(userId);
+    UserPermissions first = handler.getPermissions();
+    UserPermissions second = handler.getPermissions();
+
+    assertSame(first, second);
+  }
+
+  private HttpHeaders headers() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+    return headers;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.service.role;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.Test;
+import org.openlmis.buq.dto.role.PermissionStringDto;
+
+public class UserPermissionsTest {
+
+  private static final String GENERAL_RIGHT = "MANAGE_BUQ";
+  private static final String SUPERVISION_RIGHT = "PREPARE_BUQ";
+  private static final String FULFILLMENT_RIGHT = "ORDERS_VIEW";
+
+  private final UUID facility = UUID.randomUUID();
+  private final UUID program = UUID.randomUUID();
+  private final UUID otherId = UUID.randomUUID();
+
+  private final UserPermissions permissions = UserPermissions.from(PermissionStringDto.from(
+      Arrays.asList(GENERAL_RIGHT,
+          SUPERVISION_RIGHT + "|" + facility + "|" + program,
+          FULFILLMENT_RIGHT + "|" + facility)));
+
+  @Test
+  public void shouldMatchGeneralRightInAnyScope() {
+    assertTrue(permissions.hasRight(GENERAL_RIGHT, null, null));
+    assertTrue(permissions.hasRight(GENERAL_RIGHT, otherId, otherId));
+  }
+
+  @Test
+  public void shouldMatchSupervisionRightForItsProgramAndFacility() {
+    assertTrue(permissions.hasRight(SUPERVISION_RIGHT, null, null));
+    assertTrue(permissions.hasRight(SUPERVISION_RIGHT, program, facility));
+    assertTrue(permissions.hasRight(SUPERVISION_RIGHT, program, null));
+    assertTrue(permissions.hasRight(SUPERVISION_RIGHT, null, facility));
+  }
+
+  @Test
+  public void shouldNotMatchSupervisionRightForOtherProgramOrFacility() {
+    assertFalse(permissions.hasRight(SUPERVISION_RIGHT, otherId, facility));
+    assertFalse(permissions.hasRight(SUPERVISION_RIGHT, program, otherId));
+    assertFalse(permissions.hasRight(SUPERVISION_RIGHT, otherId, null));
+    assertFalse(permissions.hasRight(SUPERVISION_RIGHT, null, otherId));
+  }
+
+  @Test
+  public void shouldMatchFulfillmentRightForItsFacility() {
+    assertTrue(permissions.hasRight(FULFILLMENT_RIGHT, null, facility));
+    assertFalse(permissions.hasRight(FULFILLMENT_RIGHT, null, otherId));
+    assertFalse(permissions.hasRight(FULFILLMENT_RIGHT, program, facility));
+  }
+
+  @Test
+  public void shouldNotMatchMissingRight() {
+    assertFalse(permissions.hasRight("APPROVE_BUQ", null, null));
+  }
+
+}
@@ -18,9 +18,12 @@ package org.openlmis.buq.util;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.UUID;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -31,9 +34,12 @@ import org.openlmis.buq.builder.UserDtoDataBuilder;
 import org.openlmis.buq.dto.referencedata.UserDto;
 import org.openlmis.buq.exception.AuthenticationMessageException;
 import org.openlmis.buq.service.referencedata.UserReferenceDataService;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AuthenticationHelperTest {
@@ -57,6 +63,11 @@ public class AuthenticationHelperTest {
     SecurityContextHolder.setContext(securityContext);
   }
 
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
   @Test
   public void shouldReturnUser() {
     // given
@@ -79,4 +90,20 @@ public class AuthenticationHelperTest {
     authenticationHelper.getCurrentUser();
   }
 
+  @Test
+  public void shouldFetchUserOncePerRequest() {
+    // given
+    RequestContextHolder
+        .setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    UserDto userMock = new UserDtoDataBuilder().buildAsDto();
+    when(userReferenceDataService.findOne(userId)).thenReturn(userMock);
+
+    // when
+    authenticationHelper.getCurrentUser();
+    authenticationHelper.getCurrentUser();
+
+    // then
+    verify(userReferenceDataService, times(1)).findOne(userId);
+  }
+
 }
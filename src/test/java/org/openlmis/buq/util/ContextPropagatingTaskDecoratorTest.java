@@ -0,0 +1,97 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+public class ContextPropagatingTaskDecoratorTest {
+
+  private ContextPropagatingTaskDecorator decorator = new ContextPropagatingTaskDecorator();
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void shouldPassContextToWorkerThread() throws Exception {
+    SecurityContext context = new SecurityContextImpl(mock(Authentication.class));
+    RequestAttributes attributes = mock(RequestAttributes.class);
+    SecurityContextHolder.setContext(context);
+    RequestContextHolder.setRequestAttributes(attributes);
+
+    AtomicReference<Authentication> authentication = new AtomicReference<>();
+    AtomicReference<RequestAttributes> requestAttributes = new AtomicReference<>();
+    Runnable task = decorator.decorate(() -> {
+      authentication.set(SecurityContextHolder.getContext().getAuthentication());
+      requestAttributes.set(RequestContextHolder.getRequestAttributes());
+    });
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.submit(task).get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+
+    assertThat(authentication.get(), is(sameInstance(context.getAuthentication())));
+    assertThat(requestAttributes.get(), is(sameInstance(attributes)));
+  }
+
+  @Test
+  public void shouldRunTaskWithoutRequestAttributes() {
+    RequestAttributes attributes = mock(RequestAttributes.class);
+    RequestContextHolder.setRequestAttributes(attributes);
+
+    AtomicReference<RequestAttributes> requestAttributes = new AtomicReference<>(attributes);
+    ContextPropagatingTaskDecorator
+        .withoutRequest(() -> requestAttributes.set(RequestContextHolder.getRequestAttributes()))
+        .run();
+
+    assertThat(requestAttributes.get(), is(nullValue()));
+    assertThat(RequestContextHolder.getRequestAttributes(), is(sameInstance(attributes)));
+  }
+
+  @Test
+  public void shouldRestorePreviousContextAfterRun() {
+    SecurityContext context = new SecurityContextImpl(mock(Authentication.class));
+    SecurityContextHolder.setContext(context);
+    Runnable task = decorator.decorate(() -> { });
+
+    SecurityContext other = new SecurityContextImpl(mock(Authentication.class));
+    SecurityContextHolder.setContext(other);
+    task.run();
+
+    assertThat(SecurityContextHolder.getContext(), is(sameInstance(other)));
+    assertThat(RequestContextHolder.getRequestAttributes(), is(nullValue()));
+  }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+public class FutureHelperTest {
+
+  @Test
+  public void shouldReturnValueOfFuture() {
+    assertThat(FutureHelper.join(CompletableFuture.completedFuture("value")), is("value"));
+  }
+
+  @Test
+  public void shouldRethrowOriginalException() {
+    IllegalStateException exception = new IllegalStateException();
+    CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+      throw exception;
+    });
+
+    try {
+      FutureHelper.join(future);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException ex) {
+      assertThat(ex, is(sameInstance(exception)));
+    }
+  }
+
+}
@@ -17,20 +17,25 @@ package org.openlmis.buq.util;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
 import java.util.List;
+import java.util.UUID;
 import org.junit.Test;
 import org.openlmis.buq.service.PageDto;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class MergerTest {
 
   @Test
@@ -106,4 +111,80 @@ public class MergerTest {
     assertThat(merged.getContent(), hasItems("a", "b", "c", "d"));
   }
 
+  @Test
+  public void shouldDeduplicateElementsById() {
+    UUID id = UUID.randomUUID();
+    Entity first = new Entity(id);
+    Entity duplicate = new Entity(id);
+    Entity other = new Entity(UUID.randomUUID());
+
+    Merger.Accumulator<Entity> accumulator = new Merger.Accumulator<>(Entity::getId);
+    accumulator.addAll(new Entity[]{first, other});
+    accumulator.addAll(new Entity[]{duplicate});
+
+    assertThat(accumulator.toArray(Entity[].class), arrayContaining(first, other));
+  }
+
+  @Test
+  public void shouldReportTotalOfMergedPages() {
+    UUID id = UUID.randomUUID();
+    PageDto<Entity> page1 = new PageDto<>(new PageImpl<>(
+        ImmutableList.of(new Entity(id), new Entity(UUID.randomUUID())),
+        PageRequest.of(0, 2), 5));
+    PageDto<Entity> page2 = new PageDto<>(new PageImpl<>(
+        ImmutableList.of(new Entity(id)), PageRequest.of(0, 2), 1));
+
+    Merger.Accumulator<Entity> accumulator = new Merger.Accumulator<>(Entity::getId);
+    accumulator.addPage(page1);
+    accumulator.addPage(page2);
+    PageDto<Entity> merged = accumulator.toPage();
+
+    assertThat(merged.getContent(), hasSize(2));
+    assertThat(merged.getTotalElements(), is(5L));
+    assertThat(merged.getTotalPages(), is(3));
+    assertThat(merged.isLast(), is(false));
+  }
+
+  @Test
+  public void shouldMergeEmptyPages() {
+    PageDto<Entity> merged = Merger
+        .ofPages(ImmutableList.of(new PageDto<Entity>(), new PageDto<Entity>()))
+        .merge();
+
+    assertThat(merged.getContent(), hasSize(0));
+    assertThat(merged.getTotalElements(), is(0L));
+    assertThat(merged.isLast(), is(true));
+  }
+
+  @Test
+  public void shouldReturnSingleAddedResponseAsItIs() {
+    Entity[] array = new Entity[]{new Entity(UUID.randomUUID())};
+    Merger.Accumulator<Entity> accumulator = new Merger.Accumulator<>();
+    accumulator.addAll(array);
+    accumulator.addAll(null);
+
+    assertThat(accumulator.toArray(Entity[].class), is(sameInstance(array)));
+  }
+
+  @Test
+  public void shouldReturnEmptyResultIfNothingWasAdded() {
+    Merger.Accumulator<Entity> accumulator = new Merger.Accumulator<>();
+
+    assertThat(accumulator.isEmpty(), is(true));
+    assertThat(accumulator.toArray(Entity[].class), is(emptyArray()));
+    assertThat(accumulator.toPage().getContent(), hasSize(0));
+  }
+
+  private static final class Entity {
+    private final UUID id;
+
+    private Entity(UUID id) {
+      this.id = id;
+    }
+
+    public UUID getId() {
+      return id;
+    }
+  }
+
 }
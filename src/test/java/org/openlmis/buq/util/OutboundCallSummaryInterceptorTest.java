@@ -0,0 +1,82 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class OutboundCallSummaryInterceptorTest {
+
+  private static final String PATTERN = "/api/bottomUpQuantifications/{id}";
+
+  private MeterRegistry registry = new SimpleMeterRegistry();
+
+  private OutboundCallSummaryInterceptor interceptor = new OutboundCallSummaryInterceptor(registry);
+
+  private MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+
+  @Before
+  public void setUp() {
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void shouldRecordNumberOfOutboundCallsOfRequest() {
+    OutboundCallSummary.record("GET /api/facilities/{id}", 1, 1);
+    OutboundCallSummary.record("GET /api/programs/{id}", 1, 1);
+
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+    DistributionSummary summary = findSummary();
+    assertThat(summary.count(), is(1L));
+    assertThat(summary.totalAmount(), is(2.0));
+  }
+
+  @Test
+  public void shouldRecordRequestWithoutOutboundCalls() {
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+
+    DistributionSummary summary = findSummary();
+    assertThat(summary.count(), is(1L));
+    assertThat(summary.totalAmount(), is(0.0));
+  }
+
+  private DistributionSummary findSummary() {
+    return registry
+        .get("inbound.outbound.calls")
+        .tags("uri", PATTERN, "method", "GET")
+        .summary();
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class OutboundCallSummaryTest {
+
+  private static final String FACILITY = "GET /api/facilities/{id}";
+  private static final String PROGRAMS = "GET /api/programs";
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void shouldSumUpCallsOfCurrentRequest() {
+    startRequest();
+
+    OutboundCallSummary.record(FACILITY, TimeUnit.MILLISECONDS.toNanos(10), 100);
+    OutboundCallSummary.record(FACILITY, TimeUnit.MILLISECONDS.toNanos(20), 200);
+    OutboundCallSummary.record(PROGRAMS, TimeUnit.MILLISECONDS.toNanos(5), -1);
+
+    OutboundCallSummary summary = OutboundCallSummary.current();
+    assertThat(summary.getCalls(), is(3L));
+    assertThat(summary.getDurationMillis(), is(35L));
+    assertThat(summary.toString(), containsString(FACILITY + " x2 (30 ms, 300 bytes)"));
+    assertThat(summary.toString(), containsString(PROGRAMS + " x1 (5 ms, 0 bytes)"));
+  }
+
+  @Test
+  public void shouldStartNewSummaryInNextRequest() {
+    startRequest();
+    OutboundCallSummary.record(FACILITY, 1, 1);
+
+    startRequest();
+
+    assertThat(OutboundCallSummary.current(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldIgnoreCallsOutsideOfRequest() {
+    OutboundCallSummary.record(FACILITY, 1, 1);
+
+    assertThat(OutboundCallSummary.current(), is(nullValue()));
+  }
+
+  private void startRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+}
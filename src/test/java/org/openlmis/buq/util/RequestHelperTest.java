@@ -18,7 +18,10 @@ package org.openlmis.buq.util;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
@@ -27,8 +30,15 @@ import static org.springframework.web.util.UriUtils.encodeQueryParam;
 import com.google.common.collect.Lists;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.lang.RandomStringUtils;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
 import org.junit.Test;
 import org.openlmis.buq.service.RequestParameters;
 import org.springframework.http.HttpEntity;
@@ -148,6 +158,42 @@ public class RequestHelperTest {
     assertThat(uri[0].toString(), containsString("a=b"));
   }
 
+  @Test
+  public void shouldSplitManyValuesIntoUrisWithinLimit() {
+    Set<String> ids = Stream
+        .generate(() -> UUID.randomUUID().toString())
+        .limit(500)
+        .collect(Collectors.toSet());
+    String program = UUID.randomUUID().toString();
+
+    URI[] uris = RequestHelper.splitRequest(
+        URL, RequestParameters.init().set("id", ids).set("program", program), MAX_URL_LENGTH);
+
+    assertThat(uris.length, is(greaterThan(1)));
+    assertThat(Arrays.stream(uris).map(uri -> uri.toString().length())
+        .collect(Collectors.toList()), everyItem(lessThanOrEqualTo(MAX_URL_LENGTH)));
+    assertThat(Arrays.stream(uris).map(URI::toString).collect(Collectors.toList()),
+        everyItem(containsString("program=" + program)));
+
+    Set<String> found = Arrays
+        .stream(uris)
+        .flatMap(uri -> URLEncodedUtils.parse(uri, UTF_8).stream())
+        .filter(pair -> "id".equals(pair.getName()))
+        .map(NameValuePair::getValue)
+        .collect(Collectors.toSet());
+
+    assertThat(found, is(ids));
+  }
+
+  @Test
+  public void shouldNotReturnDuplicatedUris() {
+    URI[] uri = RequestHelper.splitRequest(
+        URL, RequestParameters.init().set("a", Lists.newArrayList("b", "b")), URL.length());
+
+    assertThat(uri.length, is(1));
+    assertThat(uri[0].toString(), is(URL + "?a=b"));
+  }
+
   private String randomString() throws UnsupportedEncodingException {
     return encodeQueryParam(RandomStringUtils.randomAlphabetic(500), UTF_8.name());
   }
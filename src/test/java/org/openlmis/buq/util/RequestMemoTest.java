@@ -0,0 +1,118 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.buq.util;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class RequestMemoTest {
+
+  private static final String NAME = "test";
+
+  private AtomicInteger calls = new AtomicInteger();
+
+  private Function<String, String> loader = key -> {
+    calls.incrementAndGet();
+    return key.toUpperCase();
+  };
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void shouldLoadValueOncePerRequest() {
+    startRequest();
+
+    assertThat(RequestMemo.get(NAME, "a", loader), is("A"));
+    assertThat(RequestMemo.get(NAME, "a", loader), is("A"));
+    assertThat(RequestMemo.get(NAME, "b", loader), is("B"));
+
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldLoadValueAgainInNextRequest() {
+    startRequest();
+    RequestMemo.get(NAME, "a", loader);
+
+    startRequest();
+    RequestMemo.get(NAME, "a", loader);
+
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldKeepValuesOfDifferentNamesApart() {
+    startRequest();
+
+    RequestMemo.get(NAME, "a", loader);
+    assertThat(RequestMemo.get("other", "a", key -> "other"), is("other"));
+
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  public void shouldNotRememberNullValues() {
+    startRequest();
+    Function<String, String> nullLoader = key -> {
+      calls.incrementAndGet();
+      return null;
+    };
+
+    assertThat(RequestMemo.get(NAME, "a", nullLoader), is(nullValue()));
+    assertThat(RequestMemo.get(NAME, "a", nullLoader), is(nullValue()));
+
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldAlwaysLoadValueOutsideOfRequest() {
+    RequestMemo.get(NAME, "a", loader);
+    RequestMemo.get(NAME, "a", loader);
+
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldLoadValueAfterRequestHasCompleted() {
+    ServletRequestAttributes attributes =
+        new ServletRequestAttributes(new MockHttpServletRequest());
+    attributes.requestCompleted();
+    RequestContextHolder.setRequestAttributes(attributes);
+
+    assertThat(RequestMemo.get(NAME, "a", loader), is("A"));
+    assertThat(RequestMemo.get(NAME, "a", loader), is("A"));
+
+    assertThat(calls.get(), is(2));
+  }
+
+  private void startRequest() {
+    RequestContextHolder
+        .setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+}